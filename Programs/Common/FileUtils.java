@@ -0,0 +1,665 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+/**
+ * FileUtilities for reading and writing
+ *
+ * openToRead and openToWrite print an error and exit if the file can not
+ * be opened. The other methods throw an IOException naming the file
+ * instead, so a program can recover, and read through a BufferedReader or
+ * straight into memory instead of through a Scanner, which is much faster
+ * on large files. Text files are read as UTF-8; malformed bytes become
+ * the replacement char instead of an error. The async methods start a
+ * read on a shared pool of daemon threads and return at once, so a
+ * program can load its files while it does other setup.
+ *
+ * This one copy is shared by every program that uses it. Compile a
+ * program from its own folder with javac -d . -sourcepath ../Common *.java
+ * so FileUtils is found here and its class file lands next to the rest.
+ *
+ * @author Aditya Dendukuri
+ * @since August 23,2024
+ */
+public class FileUtils {
+
+	private static final int BUFFER_SIZE = 1 << 16;			// 64KB read buffer
+	public static final int WRITE_BUFFER_SIZE = 1 << 20;	// 1MB default write buffer
+
+	/**
+	 * Opens a file to read using the scanner class
+	 *
+	 * @param fileName name of the file to Open
+	 * @return the Scanner object to the file
+	 */
+	public static Scanner openToRead(String fileName) {
+		Scanner input = null;
+		try {
+			input = new Scanner(new File(fileName));
+		}
+
+		catch (FileNotFoundException e) {
+			System.err.println("Error: Can not open " + fileName + " for reading.");
+			System.exit(72);
+		}
+
+		return input;
+	}
+
+	/**
+	 * Opens a file to write using the printWriter class\
+	 *
+	 * @param fileName name of the file to open
+	 * @return the printWriter object to the file
+	 */
+	public static PrintWriter openToWrite(String fileName) {
+		PrintWriter output = null;
+
+		try {
+			output = new PrintWriter(new File(fileName));
+		} catch (FileNotFoundException e) {
+			System.err.println("Error: Can not open " + fileName + " for writing.");
+			System.exit(73);
+		}
+		return output;
+
+	}
+
+	/**
+	 * Opens a file to read line by line with a large buffer.
+	 *
+	 * @param fileName name of the file to open
+	 * @return the reader, which the caller must close
+	 * @throws IOException if the file can not be opened
+	 */
+	public static BufferedReader openReader(String fileName) throws IOException {
+		return new BufferedReader(new InputStreamReader(Files.newInputStream(path(fileName)),
+				StandardCharsets.UTF_8), BUFFER_SIZE);
+	}
+
+	/**
+	 * Reads a file lazily as a stream of lines. Use it in a
+	 * try-with-resources so the file is closed.
+	 *
+	 * @param fileName name of the file to read
+	 * @return the lines of the file, without line terminators
+	 * @throws IOException if the file can not be opened; errors while
+	 *                     reading are thrown as UncheckedIOException
+	 */
+	public static Stream<String> lines(String fileName) throws IOException {
+		BufferedReader reader = openReader(fileName);
+		return reader.lines().onClose(() -> {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	/**
+	 * Hands every line of a file to an action, in order.
+	 *
+	 * @param fileName name of the file to read
+	 * @param action   what to do with each line, without its line terminator
+	 * @throws IOException if the file can not be read
+	 */
+	public static void forEachLine(String fileName, Consumer<String> action) throws IOException {
+		try (BufferedReader reader = openReader(fileName)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				action.accept(line);
+			}
+		}
+	}
+
+	/**
+	 * Reads every line of a file into a list.
+	 *
+	 * @param fileName name of the file to read
+	 * @return the lines of the file, without line terminators
+	 * @throws IOException if the file can not be read
+	 */
+	public static List<String> readAllLines(String fileName) throws IOException {
+		List<String> lines = new ArrayList<>();
+		forEachLine(fileName, lines::add);
+		return lines;
+	}
+
+	/**
+	 * Reads a whole file into memory in one go.
+	 *
+	 * @param fileName name of the file to read
+	 * @return every byte of the file
+	 * @throws IOException if the file can not be read
+	 */
+	public static byte[] readAllBytes(String fileName) throws IOException {
+		return Files.readAllBytes(path(fileName));
+	}
+
+	/**
+	 * Reads a whole text file into one String, line terminators and all.
+	 *
+	 * @param fileName name of the file to read
+	 * @return the text of the file
+	 * @throws IOException if the file can not be read
+	 */
+	public static String readString(String fileName) throws IOException {
+		return new String(readAllBytes(fileName), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Maps a file into memory to read it without copying it. The file is
+	 * read by the operating system as the buffer is used, and stays mapped
+	 * until the buffer is garbage collected.
+	 *
+	 * @param fileName name of the file to map
+	 * @return a read-only buffer over the whole file
+	 * @throws IOException if the file can not be mapped or is over 2GB
+	 */
+	public static MappedByteBuffer mapToRead(String fileName) throws IOException {
+		try (FileChannel channel = FileChannel.open(path(fileName), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Can not map " + fileName + ": files over 2GB can not be mapped whole");
+			}
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Opens a file to write text to as UTF-8 through a large buffer.
+	 * Wrap it in a PrintWriter for print and printf, but note that a
+	 * PrintWriter hides errors until checkError is called.
+	 *
+	 * @param fileName   name of the file to write
+	 * @param bufferSize bytes held before they are written to the file
+	 * @param asyncFlush true to write full buffers on a background thread
+	 *                   while the next buffer is filled
+	 * @param atomic     true to write to a temporary file that replaces
+	 *                   fileName only when the writer is closed, so the file
+	 *                   is never seen half-written
+	 * @return the writer, which the caller must close
+	 * @throws IOException if the file can not be created
+	 */
+	public static Writer openWriter(String fileName, int bufferSize, boolean asyncFlush, boolean atomic)
+			throws IOException {
+		return new OutputStreamWriter(new BatchOutputStream(fileName, bufferSize, asyncFlush, atomic),
+				StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes text to a file as UTF-8 in one go, replacing the file
+	 * atomically so it is never left half-written.
+	 *
+	 * @param fileName name of the file to write
+	 * @param text     the whole text of the file
+	 * @throws IOException if the file can not be written
+	 */
+	public static void writeString(String fileName, CharSequence text) throws IOException {
+		try (Writer output = openWriter(fileName, WRITE_BUFFER_SIZE, false, true)) {
+			output.append(text);
+		}
+	}
+
+	/**
+	 * Reads a file with a loader on the shared I/O threads.
+	 *
+	 * @param fileName name of the file to read
+	 * @param loader   what reads the file, such as FileUtils::readAllLines
+	 * @return a future that completes with what the loader returned, or
+	 *         exceptionally with the exception it threw
+	 */
+	public static <T> CompletableFuture<T> loadAsync(String fileName, Loader<T> loader) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		ioExecutor().execute(() -> {
+			try {
+				result.complete(loader.load(fileName));
+			} catch (Throwable e) {
+				result.completeExceptionally(e);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Starts reading every line of a file into a list.
+	 *
+	 * @param fileName name of the file to read
+	 * @return a future for the lines of the file
+	 * @see #readAllLines
+	 */
+	public static CompletableFuture<List<String>> readAllLinesAsync(String fileName) {
+		return loadAsync(fileName, FileUtils::readAllLines);
+	}
+
+	/**
+	 * Starts reading a whole file into memory.
+	 *
+	 * @param fileName name of the file to read
+	 * @return a future for every byte of the file
+	 * @see #readAllBytes
+	 */
+	public static CompletableFuture<byte[]> readAllBytesAsync(String fileName) {
+		return loadAsync(fileName, FileUtils::readAllBytes);
+	}
+
+	/**
+	 * Starts reading a whole text file into one String.
+	 *
+	 * @param fileName name of the file to read
+	 * @return a future for the text of the file
+	 * @see #readString
+	 */
+	public static CompletableFuture<String> readStringAsync(String fileName) {
+		return loadAsync(fileName, FileUtils::readString);
+	}
+
+	/**
+	 * Waits for an async read to finish.
+	 *
+	 * @param future the read, from one of the async methods
+	 * @return what was read
+	 * @throws IOException the IOException the read failed with, or one
+	 *                     wrapping any other failure or an interrupt
+	 */
+	public static <T> T await(CompletableFuture<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException("Can not read: " + cause, cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading", e);
+		}
+	}
+
+	/**
+	 * The threads the async methods read on. They are daemon threads,
+	 * so a program can exit with reads still running. Chain follow-up
+	 * work that reads more files on it with thenApplyAsync.
+	 *
+	 * @return the shared I/O executor
+	 */
+	public static Executor ioExecutor() {
+		return IOPool.EXECUTOR;
+	}
+
+	/**
+	 * Reads a file into some value.
+	 *
+	 * @param <T> what the file is read into
+	 */
+	@FunctionalInterface
+	public interface Loader<T> {
+
+		/**
+		 * @param fileName name of the file to read
+		 * @return what the file was read into
+		 * @throws IOException if the file can not be read
+		 */
+		T load(String fileName) throws IOException;
+	}
+
+	/**
+	 * Holds the I/O executor, so its threads are only started by a
+	 * program that reads asynchronously.
+	 */
+	private static class IOPool {
+
+		private static final int THREADS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+		private static final AtomicInteger COUNT = new AtomicInteger();
+
+		private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, task -> {
+			Thread thread = new Thread(task, "FileUtils io " + COUNT.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * @param fileName name of a file
+	 * @return its path
+	 * @throws IOException if the name is not a valid path
+	 */
+	private static Path path(String fileName) throws IOException {
+		try {
+			return Paths.get(fileName);
+		} catch (InvalidPathException e) {
+			throw new IOException("Can not open " + fileName + ": " + e.getReason(), e);
+		}
+	}
+
+	/**
+	 * An output stream to a file that collects bytes in one large buffer
+	 * and writes the buffer to the file whenever it fills, so the file is
+	 * written in a few large writes however small the writes to the stream
+	 * are. With asyncFlush a full buffer is written on a dedicated thread
+	 * while a second buffer is filled. With atomic the bytes go to a
+	 * temporary file in the same directory, which is forced to disk and
+	 * renamed over the target on close; if anything fails the temporary
+	 * file is deleted and the target is left as it was. The temporary
+	 * file is created with the default permissions for a new file and
+	 * takes the target's permissions if the target exists.
+	 *
+	 * Once a write fails, every later write, flush and close throws.
+	 */
+	public static class BatchOutputStream extends OutputStream {
+
+		private final Path target;				// the file being written
+		private final Path written;				// the file bytes go to: target, or the temporary file
+		private final FileChannel channel;
+		private ByteBuffer buffer;				// the buffer being filled
+		private ByteBuffer spare;				// the other buffer, when flushing asynchronously
+		private final ExecutorService flusher;	// writes full buffers, null when flushing synchronously
+		private Future<?> pendingWrite;			// the buffer the flusher is writing
+		private volatile IOException failure;	// the first write that failed, set by the flusher too
+		private boolean closed;
+
+		/**
+		 * Opens a file to write.
+		 *
+		 * @param fileName   name of the file to write
+		 * @param bufferSize bytes held before they are written to the file
+		 * @param asyncFlush true to write full buffers on a background thread
+		 * @param atomic     true to replace the file only when closed
+		 * @throws IOException if the file can not be created
+		 */
+		public BatchOutputStream(String fileName, int bufferSize, boolean asyncFlush, boolean atomic)
+				throws IOException {
+			if (bufferSize < 1) {
+				throw new IllegalArgumentException("bufferSize must be at least 1: " + bufferSize);
+			}
+			target = path(fileName).toAbsolutePath();
+			written = atomic ? createTemporary(target) : target;
+			channel = FileChannel.open(written, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			buffer = ByteBuffer.allocate(bufferSize);
+			if (asyncFlush) {
+				spare = ByteBuffer.allocate(bufferSize);
+				flusher = Executors.newSingleThreadExecutor(task -> {
+					Thread thread = new Thread(task, "FileUtils flush " + target.getFileName());
+					thread.setDaemon(true);
+					return thread;
+				});
+			} else {
+				flusher = null;
+			}
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			ensureOpen();
+			if (!buffer.hasRemaining()) {
+				writeBuffer();
+			}
+			buffer.put((byte) b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			ensureOpen();
+			while (length > 0) {
+				if (!buffer.hasRemaining()) {
+					writeBuffer();
+				}
+				int count = Math.min(length, buffer.remaining());
+				buffer.put(bytes, offset, count);
+				offset += count;
+				length -= count;
+			}
+		}
+
+		/**
+		 * Writes everything buffered to the file and waits for it to be
+		 * written. The bytes reach the operating system but are not forced
+		 * to disk.
+		 */
+		@Override
+		public void flush() throws IOException {
+			ensureOpen();
+			writeBuffer();
+			waitForWrite();
+		}
+
+		/**
+		 * Writes everything buffered and closes the file. With atomic the
+		 * file is forced to disk and then replaces the target.
+		 *
+		 * @throws IOException if this or any earlier write failed
+		 */
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				if (failure == null) {
+					writeBuffer();
+				}
+				waitForWrite();
+				if (failure == null && written != target) {
+					channel.force(true);
+				}
+			} catch (IOException e) {
+				fail(e);
+			} finally {
+				if (flusher != null) {
+					flusher.shutdownNow();
+				}
+				try {
+					channel.close();
+				} catch (IOException e) {
+					fail(e);
+				}
+			}
+			finish();
+			if (failure != null) {
+				throw failed();
+			}
+		}
+
+		/**
+		 * Renames the temporary file over the target, or deletes it if
+		 * writing failed.
+		 */
+		private void finish() throws IOException {
+			if (written == target) {
+				return;
+			}
+			if (failure != null) {
+				Files.deleteIfExists(written);
+				return;
+			}
+			try {
+				keepPermissions();
+				try {
+					Files.move(written, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(written, target, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} catch (IOException e) {
+				fail(e);
+				Files.deleteIfExists(written);
+			}
+		}
+
+		/**
+		 * Gives the temporary file the permissions of the target it
+		 * replaces, so replacing a file does not change who can read it.
+		 */
+		private void keepPermissions() throws IOException {
+			if (!Files.exists(target)) {
+				return;
+			}
+			try {
+				Files.setPosixFilePermissions(written, Files.getPosixFilePermissions(target));
+			} catch (UnsupportedOperationException e) {
+				// not a POSIX file system, so there are no permission bits to keep
+			}
+		}
+
+		/**
+		 * Creates an empty file with an unused name next to the target.
+		 * Unlike Files.createTempFile, which makes the file readable only
+		 * by its owner, the file gets the default permissions for a new
+		 * file.
+		 *
+		 * @param target the file the temporary file will replace
+		 * @return the temporary file
+		 * @throws IOException if the file can not be created
+		 */
+		private static Path createTemporary(Path target) throws IOException {
+			while (true) {
+				String suffix = Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36);
+				Path temporary = target.resolveSibling(target.getFileName() + "." + suffix + ".tmp");
+				try {
+					return Files.createFile(temporary);
+				} catch (FileAlreadyExistsException e) {
+					// taken, so try another name
+				}
+			}
+		}
+
+		/**
+		 * Hands the buffer to the file, directly or through the flusher,
+		 * and starts filling an empty one.
+		 */
+		private void writeBuffer() throws IOException {
+			buffer.flip();
+			if (!buffer.hasRemaining()) {
+				buffer.clear();
+				return;
+			}
+			if (flusher == null) {
+				writeFully(buffer);
+				buffer.clear();
+				return;
+			}
+			waitForWrite();
+			ByteBuffer full = buffer;
+			pendingWrite = flusher.submit(() -> {
+				writeFully(full);
+				return null;
+			});
+			buffer = spare;
+			buffer.clear();
+			spare = full;
+		}
+
+		/**
+		 * Waits for the flusher to finish the buffer it is writing.
+		 *
+		 * @throws IOException if writing that buffer failed
+		 */
+		private void waitForWrite() throws IOException {
+			if (pendingWrite == null) {
+				return;
+			}
+			try {
+				pendingWrite.get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException) {
+					throw fail((IOException) e.getCause());
+				}
+				throw fail(new IOException("Can not write " + target, e.getCause()));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw fail(new IOException("Interrupted while writing " + target, e));
+			} finally {
+				pendingWrite = null;
+			}
+		}
+
+		/**
+		 * @throws IOException if the stream has been closed or a write,
+		 *                     including one on the flusher, has failed
+		 */
+		private void ensureOpen() throws IOException {
+			if (closed) {
+				throw new IOException("Can not write " + target + ": the stream is closed");
+			}
+			if (failure != null) {
+				throw failed();
+			}
+		}
+
+		/**
+		 * Records a failure. Only the first one is kept, since later ones
+		 * are usually caused by it.
+		 *
+		 * @param e the failure
+		 * @return e, to throw
+		 */
+		private synchronized IOException fail(IOException e) {
+			if (failure == null) {
+				failure = e;
+			}
+			return e;
+		}
+
+		/**
+		 * @return an exception reporting the recorded failure
+		 */
+		private IOException failed() {
+			return new IOException("Can not write " + target + ": " + failure.getMessage(), failure);
+		}
+
+		/**
+		 * Writes all of a buffer to the file.
+		 *
+		 * @param bytes the bytes to write, from position to limit
+		 * @throws IOException if the file can not be written
+		 */
+		private void writeFully(ByteBuffer bytes) throws IOException {
+			try {
+				while (bytes.hasRemaining()) {
+					channel.write(bytes);
+				}
+			} catch (IOException e) {
+				throw fail(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/**
+ * Wraps another RenderPrinter and joins runs of text printed in the same
+ * style into one call. A paragraph of plain words and spaces reaches the
+ * wrapped printer as a single print call instead of one per word and one
+ * per space. The run is passed on when the style changes, at line breaks,
+ * breaks, rules and preformatted text, and on flush.
+ *
+ * @author Aditya Dendukuri
+ * @since December 20 2024
+ */
+public class CoalescingPrinter implements RenderPrinter {
+
+	// styles a run of text can have; headings use HEADING + level
+	private static final int NONE = -1;
+	private static final int DEFAULT = 0;
+	private static final int BOLD = 1;
+	private static final int ITALIC = 2;
+	private static final int HEADING = 10;
+
+	private final RenderPrinter printer;
+	private final StringBuilder run;		// text waiting to be printed
+	private int runStyle;					// style of the text in run, NONE if empty
+
+	/**
+	 * @param printer the printer the joined runs are passed to
+	 */
+	public CoalescingPrinter(RenderPrinter printer) {
+		this.printer = printer;
+		run = new StringBuilder();
+		runStyle = NONE;
+	}
+
+	@Override
+	public void print(String text) {
+		append(DEFAULT, text);
+	}
+
+	@Override
+	public void printBold(String text) {
+		append(BOLD, text);
+	}
+
+	@Override
+	public void printItalic(String text) {
+		append(ITALIC, text);
+	}
+
+	@Override
+	public void printHeading(int level, String text) {
+		append(HEADING + level, text);
+	}
+
+	@Override
+	public void printPreformattedText(String text) {
+		flushRun();
+		printer.printPreformattedText(text);
+	}
+
+	@Override
+	public void println() {
+		flushRun();
+		printer.println();
+	}
+
+	@Override
+	public void printBreak() {
+		flushRun();
+		printer.printBreak();
+	}
+
+	@Override
+	public void printHorizontalRule() {
+		flushRun();
+		printer.printHorizontalRule();
+	}
+
+	@Override
+	public void flush() {
+		flushRun();
+		printer.flush();
+	}
+
+	/**
+	 * Adds text to the current run, first passing on the run if the text
+	 * is in a different style.
+	 *
+	 * @param style the style of the text
+	 * @param text  the text to add
+	 */
+	private void append(int style, String text) {
+		if (style != runStyle) {
+			flushRun();
+			runStyle = style;
+		}
+		run.append(text);
+	}
+
+	/**
+	 * Passes the current run to the wrapped printer in one call.
+	 */
+	private void flushRun() {
+		if (runStyle == NONE) {
+			return;
+		}
+		String text = run.toString();
+		switch (runStyle) {
+			case DEFAULT:
+				printer.print(text);
+				break;
+			case BOLD:
+				printer.printBold(text);
+				break;
+			case ITALIC:
+				printer.printItalic(text);
+				break;
+			default:
+				printer.printHeading(runStyle - HEADING, text);
+				break;
+		}
+		run.setLength(0);
+		runStyle = NONE;
+	}
+}
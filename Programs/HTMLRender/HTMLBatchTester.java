@@ -0,0 +1,233 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Batch version of HTMLTester. Tokenizes many HTML files in parallel and
+ * reports the number of lines and tokens in each file and how long it
+ * took. Every file gets its own HTMLUtilities since the tokenizer's
+ * comment and preformat state belongs to one document. Run with:
+ *
+ *		java HTMLBatchTester [-threads n] [-out reportFile] dirOrFile ...
+ *
+ * A directory is replaced by the .html and .htm files in it.
+ *
+ * @author Aditya Dendukuri
+ * @since December 11 2024
+ */
+public class HTMLBatchTester {
+
+	/**
+	 * The counts and timing for one tokenized file.
+	 */
+	private static class FileResult {
+		private final String fileName;
+		private long lines;
+		private long tokens;
+		private long nanos;
+		private String error;		// null if the file was tokenized
+
+		private FileResult(String fileName) {
+			this.fileName = fileName;
+		}
+	}
+
+	private int threads;			// number of worker threads
+	private String reportFile;		// where the report goes, null for the screen
+
+	public HTMLBatchTester() {
+		threads = Runtime.getRuntime().availableProcessors();
+		reportFile = null;
+	}
+
+	public static void main(String[] args) {
+		HTMLBatchTester bt = new HTMLBatchTester();
+		bt.run(args);
+	}
+
+	/**
+	 * Reads the options and file names from the command line, tokenizes
+	 * every file and writes the report.
+	 *
+	 * @param args the String array holding the command line arguments
+	 */
+	public void run(String[] args) {
+		List<String> fileNames = new ArrayList<>();
+		for (int a = 0; a < args.length; a++) {
+			if (args[a].equals("-threads") && a + 1 < args.length) {
+				threads = parseThreads(args[++a]);
+			} else if (args[a].equals("-out") && a + 1 < args.length) {
+				reportFile = args[++a];
+			} else {
+				addFiles(args[a], fileNames);
+			}
+		}
+		if (fileNames.isEmpty()) {
+			printUsage();
+			System.exit(0);
+		}
+
+		long start = System.nanoTime();
+		List<FileResult> results = tokenizeAll(fileNames);
+		long elapsed = System.nanoTime() - start;
+
+		if (reportFile == null) {
+			PrintWriter output = new PrintWriter(System.out);
+			writeReport(results, elapsed, output);
+			output.flush();
+			return;
+		}
+		// the report replaces the old one only once it is complete
+		try (PrintWriter output = new PrintWriter(FileUtils.openWriter(reportFile,
+				FileUtils.WRITE_BUFFER_SIZE, false, true))) {
+			writeReport(results, elapsed, output);
+			if (output.checkError()) {
+				throw new IOException("write failed");
+			}
+		} catch (IOException e) {
+			System.err.println("Error: Can not write " + reportFile + ": " + e.getMessage());
+			System.exit(73);
+		}
+	}
+
+	/**
+	 * Reads the number of worker threads, printing the usage and exiting
+	 * if it is not a whole number of at least 1.
+	 *
+	 * @param value the argument after -threads
+	 * @return the number of threads
+	 */
+	private int parseThreads(String value) {
+		int count = 0;
+		try {
+			count = Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			// not a number, reported below
+		}
+		if (count < 1) {
+			System.err.println("Error: -threads needs a number of at least 1, not " + value);
+			printUsage();
+			System.exit(64);
+		}
+		return count;
+	}
+
+	/**
+	 * Prints how to run the batch tester.
+	 */
+	private void printUsage() {
+		System.out.println("Usage: java HTMLBatchTester [-threads n] [-out reportFile] dirOrFile ...");
+	}
+
+	/**
+	 * Tokenizes the files on a fork-join pool, one task per file.
+	 *
+	 * @param fileNames the HTML files to tokenize
+	 * @return the result for each file, in the same order as fileNames
+	 */
+	private List<FileResult> tokenizeAll(List<String> fileNames) {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			List<Callable<FileResult>> tasks = new ArrayList<>();
+			for (String fileName : fileNames) {
+				tasks.add(() -> tokenizeFile(fileName));
+			}
+			List<FileResult> results = new ArrayList<>();
+			for (Future<FileResult> future : pool.invokeAll(tasks)) {
+				results.add(future.get());
+			}
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while tokenizing", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Tokenizing failed", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Tokenizes one file line by line, counting lines and tokens. Only the
+	 * tokens are counted, so each line is tokenized as the UTF-8 bytes read
+	 * from the file and is never decoded.
+	 *
+	 * @param fileName the HTML file to tokenize
+	 * @return the counts and time taken, or the error if the file could not be read
+	 */
+	private FileResult tokenizeFile(String fileName) {
+		FileResult result = new FileResult(fileName);
+		HTMLUtilities util = new HTMLUtilities();
+		long[] tokens = new long[1];
+		TokenSink counter = (source, start, length, type) -> tokens[0]++;
+		long start = System.nanoTime();
+		try (MappedLineReader input = new MappedLineReader(fileName)) {
+			while (input.nextLine()) {
+				Utf8Text line = input.getLineBytes();
+				util.tokenize(line, 0, line.length(), counter);
+				result.lines++;
+			}
+		} catch (IOException e) {
+			result.error = e.getMessage();
+		}
+		result.nanos = System.nanoTime() - start;
+		result.tokens = tokens[0];
+		return result;
+	}
+
+	/**
+	 * Writes one row per file followed by the totals.
+	 *
+	 * @param results the results of tokenizing each file
+	 * @param elapsed the wall-clock time for the whole batch in nanoseconds
+	 * @param output  where to write the report
+	 */
+	private void writeReport(List<FileResult> results, long elapsed, PrintWriter output) {
+		long totalLines = 0;
+		long totalTokens = 0;
+		int failed = 0;
+		output.printf("%-40s %10s %12s %12s%n", "file", "lines", "tokens", "ms");
+		for (FileResult result : results) {
+			if (result.error != null) {
+				output.printf("%-40s error: %s%n", result.fileName, result.error);
+				failed++;
+			} else {
+				output.printf("%-40s %10d %12d %12.3f%n", result.fileName, result.lines,
+						result.tokens, result.nanos / 1e6);
+				totalLines += result.lines;
+				totalTokens += result.tokens;
+			}
+		}
+		output.printf("%d files (%d failed), %d lines, %d tokens in %.3f ms on %d threads%n",
+				results.size(), failed, totalLines, totalTokens, elapsed / 1e6, threads);
+	}
+
+	/**
+	 * Adds a file name to the list, or every HTML file if it names a directory.
+	 *
+	 * @param name      a file or directory name from the command line
+	 * @param fileNames the list of files to tokenize
+	 */
+	private void addFiles(String name, List<String> fileNames) {
+		File file = new File(name);
+		if (!file.isDirectory()) {
+			fileNames.add(name);
+			return;
+		}
+		File[] children = file.listFiles((dir, child) ->
+				child.endsWith(".html") || child.endsWith(".htm"));
+		if (children != null) {
+			Arrays.sort(children);
+			for (File child : children) {
+				fileNames.add(child.getPath());
+			}
+		}
+	}
+}
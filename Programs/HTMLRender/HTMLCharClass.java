@@ -0,0 +1,68 @@
+/**
+ * Character classification for the HTML tokenizer. ASCII characters are
+ * looked up in a precomputed table; anything else falls back to the
+ * Character class.
+ *
+ * @author Aditya Dendukuri
+ * @since December 9 2024
+ */
+public final class HTMLCharClass {
+
+	// bit flags stored in the table for each ASCII character
+	private static final byte LETTER = 1;
+	private static final byte DIGIT = 2;
+	private static final byte PUNCTUATION = 4;
+
+	// the punctuation characters the tokenizer splits out as their own tokens
+	private static final String PUNCTUATION_CHARS = ".,;:()?!=&~+-";
+
+	private static final byte[] TABLE = new byte[128];
+
+	static {
+		for (char c = 'a'; c <= 'z'; c++) {
+			TABLE[c] |= LETTER;
+		}
+		for (char c = 'A'; c <= 'Z'; c++) {
+			TABLE[c] |= LETTER;
+		}
+		for (char c = '0'; c <= '9'; c++) {
+			TABLE[c] |= DIGIT;
+		}
+		for (int j = 0; j < PUNCTUATION_CHARS.length(); j++) {
+			TABLE[PUNCTUATION_CHARS.charAt(j)] |= PUNCTUATION;
+		}
+	}
+
+	private HTMLCharClass() {
+	}
+
+	/**
+	 * @param c the character to check
+	 * @return true if c is a letter, in any alphabet
+	 */
+	public static boolean isLetter(char c) {
+		if (c < 128) {
+			return (TABLE[c] & LETTER) != 0;
+		}
+		return Character.isLetter(c);
+	}
+
+	/**
+	 * @param c the character to check
+	 * @return true if c is a digit, in any script
+	 */
+	public static boolean isDigit(char c) {
+		if (c < 128) {
+			return (TABLE[c] & DIGIT) != 0;
+		}
+		return Character.isDigit(c);
+	}
+
+	/**
+	 * @param c the character to check
+	 * @return true if c is one of the punctuation characters . , ; : ( ) ? ! = &amp; ~ + -
+	 */
+	public static boolean isPunctuation(char c) {
+		return c < 128 && (TABLE[c] & PUNCTUATION) != 0;
+	}
+}
@@ -0,0 +1,172 @@
+/**
+ * Recognizes and decodes HTML character entities such as &amp;amp;,
+ * &amp;eacute;, &amp;#39; and &amp;#x27; directly in the text being
+ * tokenized, without creating any Strings. Only entities ending in ';'
+ * are recognized.
+ *
+ * @author Aditya Dendukuri
+ * @since January 3 2025
+ */
+public final class HTMLEntities {
+
+	private static final int MAX_NAME_LENGTH = 8;
+
+	// named entities and the characters they stand for
+	private static final String[] NAMES = {
+		"amp", "lt", "gt", "quot", "apos", "nbsp", "copy", "reg", "trade",
+		"hellip", "mdash", "ndash", "lsquo", "rsquo", "ldquo", "rdquo",
+		"laquo", "raquo", "deg", "middot", "eacute", "egrave", "ecirc",
+		"aacute", "agrave", "acirc", "iacute", "oacute", "ocirc", "uacute",
+		"ccedil", "ntilde", "auml", "ouml", "uuml", "szlig"
+	};
+	private static final char[] VALUES = {
+		'&', '<', '>', '"', '\'', '\u00a0', '\u00a9', '\u00ae', '\u2122',
+		'\u2026', '\u2014', '\u2013', '\u2018', '\u2019', '\u201c', '\u201d',
+		'\u00ab', '\u00bb', '\u00b0', '\u00b7', '\u00e9', '\u00e8', '\u00ea',
+		'\u00e1', '\u00e0', '\u00e2', '\u00ed', '\u00f3', '\u00f4', '\u00fa',
+		'\u00e7', '\u00f1', '\u00e4', '\u00f6', '\u00fc', '\u00df'
+	};
+
+	// one-char Strings for ASCII, so decoded punctuation does not allocate
+	private static final String[] ASCII_STRINGS = new String[128];
+
+	static {
+		for (char c = 0; c < 128; c++) {
+			ASCII_STRINGS[c] = String.valueOf(c);
+		}
+	}
+
+	private HTMLEntities() {
+	}
+
+	/**
+	 * Finds the length of the entity starting at an '&amp;'.
+	 *
+	 * @param text  the text being tokenized
+	 * @param start the index of the '&amp;'
+	 * @param end   the index one past the last char that may be used
+	 * @return the number of chars in the entity including '&amp;' and ';',
+	 *         or 0 if there is no entity here
+	 */
+	public static int length(CharSequence text, int start, int end) {
+		if (start + 2 >= end || text.charAt(start) != '&') {
+			return 0;
+		}
+		if (text.charAt(start + 1) == '#') {
+			return (numericValue(text, start, end) >= 0) ? numericEnd(text, start, end) - start + 1 : 0;
+		}
+		int semicolon = start + 1;
+		while (semicolon < end && semicolon - start - 1 <= MAX_NAME_LENGTH
+				&& HTMLCharClass.isLetter(text.charAt(semicolon))) {
+			semicolon++;
+		}
+		if (semicolon >= end || text.charAt(semicolon) != ';') {
+			return 0;
+		}
+		return (namedIndex(text, start + 1, semicolon) >= 0) ? semicolon - start + 1 : 0;
+	}
+
+	/**
+	 * Decodes the entity starting at an '&amp;'. Call only after length has
+	 * found an entity there.
+	 *
+	 * @param text   the text being tokenized
+	 * @param start  the index of the '&amp;'
+	 * @param length the length returned by length
+	 * @return the code point the entity stands for
+	 */
+	public static int value(CharSequence text, int start, int length) {
+		int end = start + length;
+		if (text.charAt(start + 1) == '#') {
+			return numericValue(text, start, end);
+		}
+		return VALUES[namedIndex(text, start + 1, end - 1)];
+	}
+
+	/**
+	 * @param codePoint a decoded character
+	 * @return the character as a String, shared for ASCII characters
+	 */
+	public static String toString(int codePoint) {
+		if (codePoint < 128) {
+			return ASCII_STRINGS[codePoint];
+		}
+		return new String(Character.toChars(codePoint));
+	}
+
+	/**
+	 * @param text      the text being tokenized
+	 * @param nameStart the index of the first char of the name
+	 * @param nameEnd   the index of the ';' after the name
+	 * @return the index of the name in NAMES, or -1 if it is not known
+	 */
+	private static int namedIndex(CharSequence text, int nameStart, int nameEnd) {
+		int length = nameEnd - nameStart;
+		for (int n = 0; n < NAMES.length; n++) {
+			String name = NAMES[n];
+			if (name.length() == length) {
+				int j = 0;
+				while (j < length && text.charAt(nameStart + j) == name.charAt(j)) {
+					j++;
+				}
+				if (j == length) {
+					return n;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param text  the text being tokenized
+	 * @param start the index of the '&amp;' of a numeric entity
+	 * @param end   the index one past the last char that may be used
+	 * @return the index of the ';' ending the entity, or end if there is none
+	 */
+	private static int numericEnd(CharSequence text, int start, int end) {
+		int j = start + 2;
+		while (j < end && text.charAt(j) != ';' && j - start < 10) {
+			j++;
+		}
+		return (j < end && text.charAt(j) == ';') ? j : end;
+	}
+
+	/**
+	 * @param text  the text being tokenized
+	 * @param start the index of the '&amp;' of a numeric entity
+	 * @param end   the index one past the last char that may be used
+	 * @return the code point of a well formed &amp;#123; or &amp;#x7B;
+	 *         entity, or -1 if it is not one
+	 */
+	private static int numericValue(CharSequence text, int start, int end) {
+		int semicolon = numericEnd(text, start, end);
+		if (semicolon == end) {
+			return -1;
+		}
+		int j = start + 2;
+		int radix = 10;
+		if (j < semicolon && (text.charAt(j) == 'x' || text.charAt(j) == 'X')) {
+			radix = 16;
+			j++;
+		}
+		if (j == semicolon) {
+			return -1;
+		}
+		int value = 0;
+		for (; j < semicolon; j++) {
+			char c = text.charAt(j);
+			int digit = (c < 128) ? Character.digit(c, radix) : -1;
+			if (digit < 0) {
+				return -1;
+			}
+			value = value * radix + digit;
+			if (value > Character.MAX_CODE_POINT) {
+				return -1;
+			}
+		}
+		if (value == 0 || (value >= Character.MIN_SURROGATE && value <= Character.MAX_SURROGATE)) {
+			return -1;
+		}
+		return value;
+	}
+}
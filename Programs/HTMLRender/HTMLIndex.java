@@ -0,0 +1,218 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A search index over HTML documents, built by HTMLIndexer. Terms are
+ * kept in a sorted dictionary that is searched by binary search. Each
+ * term's postings are stored together in one byte array as varints:
+ * for every document holding the term, the gap from the previous such
+ * document, the number of times the term appears in it, and the gaps
+ * between its positions. Positions count only indexed tokens, so a
+ * phrase matches words that follow each other with only tags and
+ * punctuation in between.
+ *
+ * @author Aditya Dendukuri
+ * @since January 20 2025
+ */
+public class HTMLIndex {
+
+	private static final int[] NO_DOCUMENTS = new int[0];
+
+	private final String[] documentNames;
+	private final String[] terms;			// sorted
+	private final int[] documentCounts;		// number of documents holding each term
+	private final int[] postingsStarts;		// where each term's postings start, then the end
+	private final byte[] postings;
+	private final boolean indexesNumbers;	// true if number tokens are terms
+
+	/**
+	 * Only HTMLIndexer creates indexes.
+	 */
+	HTMLIndex(String[] documentNames, String[] terms, int[] documentCounts, int[] postingsStarts, byte[] postings,
+			boolean indexesNumbers) {
+		this.documentNames = documentNames;
+		this.terms = terms;
+		this.documentCounts = documentCounts;
+		this.postingsStarts = postingsStarts;
+		this.postings = postings;
+		this.indexesNumbers = indexesNumbers;
+	}
+
+	/** @return the number of documents indexed */
+	public int getDocumentCount() {
+		return documentNames.length;
+	}
+
+	/**
+	 * @param document a document number, as returned by lookup
+	 * @return the name the document was indexed under
+	 */
+	public String getDocumentName(int document) {
+		return documentNames[document];
+	}
+
+	/** @return the number of different terms */
+	public int getTermCount() {
+		return terms.length;
+	}
+
+	/** @return the size of all postings, in bytes */
+	public int getPostingsSize() {
+		return postings.length;
+	}
+
+	/**
+	 * @param term a term
+	 * @return the number of documents holding it
+	 */
+	public int getDocumentFrequency(String term) {
+		int t = findTerm(term);
+		return (t < 0) ? 0 : documentCounts[t];
+	}
+
+	/**
+	 * Finds the documents holding a term. Case does not matter.
+	 *
+	 * @param term the word or number to look up
+	 * @return the numbers of the documents holding it, in increasing order
+	 */
+	public int[] lookup(String term) {
+		int t = findTerm(term);
+		if (t < 0) {
+			return NO_DOCUMENTS;
+		}
+		int[] documents = new int[documentCounts[t]];
+		ByteBuffer in = postingsOf(t);
+		int document = 0;
+		for (int d = 0; d < documents.length; d++) {
+			document += VarIntBuffer.readVarInt(in);
+			documents[d] = document;
+			int frequency = VarIntBuffer.readVarInt(in);
+			for (int p = 0; p < frequency; p++) {
+				VarIntBuffer.readVarInt(in);
+			}
+		}
+		return documents;
+	}
+
+	/**
+	 * Finds the documents holding a phrase: its indexed tokens one right
+	 * after another. The phrase is tokenized the same way the documents
+	 * were, so "Mr. Greenstein" matches the words Mr and Greenstein, and
+	 * its numbers are skipped if the documents' numbers were.
+	 *
+	 * @param phrase the phrase to look up
+	 * @return the numbers of the documents holding it, in increasing order
+	 */
+	public int[] lookupPhrase(String phrase) {
+		List<String> phraseTerms = HTMLIndexer.terms(phrase, indexesNumbers);
+		if (phraseTerms.isEmpty()) {
+			return NO_DOCUMENTS;
+		}
+		int count = phraseTerms.size();
+		ByteBuffer[] ins = new ByteBuffer[count];
+		int[] remaining = new int[count];		// documents of each term not read yet
+		int[] current = new int[count];			// document each term's postings are at, -1 before the first
+		for (int k = 0; k < count; k++) {
+			int t = findTerm(phraseTerms.get(k));
+			if (t < 0) {
+				return NO_DOCUMENTS;
+			}
+			ins[k] = postingsOf(t);
+			remaining[k] = documentCounts[t];
+			current[k] = -1;
+		}
+
+		// walk every term's documents together, comparing positions where all agree
+		List<Integer> found = new ArrayList<>();
+		int[][] positions = new int[count][];
+		int target = 0;
+		while (true) {
+			boolean allAtTarget = true;
+			for (int k = 0; k < count; k++) {
+				while (current[k] < target) {
+					if (remaining[k] == 0) {
+						return toArray(found);
+					}
+					int gap = VarIntBuffer.readVarInt(ins[k]);
+					current[k] = (current[k] < 0) ? gap : current[k] + gap;
+					remaining[k]--;
+					positions[k] = readPositions(ins[k]);
+				}
+				if (current[k] > target) {
+					target = current[k];
+					allAtTarget = false;
+				}
+			}
+			if (allAtTarget) {
+				if (containsPhrase(positions)) {
+					found.add(target);
+				}
+				target++;
+			}
+		}
+	}
+
+	/**
+	 * @param positions the positions of each term of a phrase in one document
+	 * @return true if the terms appear one right after another
+	 */
+	private static boolean containsPhrase(int[][] positions) {
+		for (int start : positions[0]) {
+			boolean matches = true;
+			for (int k = 1; k < positions.length && matches; k++) {
+				matches = Arrays.binarySearch(positions[k], start + k) >= 0;
+			}
+			if (matches) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Reads one document's positions from postings, just after its gap.
+	 *
+	 * @param in the postings of a term
+	 * @return the positions, in increasing order
+	 */
+	private static int[] readPositions(ByteBuffer in) {
+		int[] positions = new int[VarIntBuffer.readVarInt(in)];
+		int position = 0;
+		for (int p = 0; p < positions.length; p++) {
+			position += VarIntBuffer.readVarInt(in);
+			positions[p] = position;
+		}
+		return positions;
+	}
+
+	/**
+	 * @param t the index of a term in the dictionary
+	 * @return a buffer over that term's postings
+	 */
+	private ByteBuffer postingsOf(int t) {
+		return ByteBuffer.wrap(postings, postingsStarts[t], postingsStarts[t + 1] - postingsStarts[t]);
+	}
+
+	/**
+	 * @param term a term in any case
+	 * @return its index in the dictionary, or a negative number if absent
+	 */
+	private int findTerm(String term) {
+		return Arrays.binarySearch(terms, HTMLIndexer.normalize(term));
+	}
+
+	/**
+	 * @param list document numbers
+	 * @return them as an array
+	 */
+	private static int[] toArray(List<Integer> list) {
+		int[] array = new int[list.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = list.get(i);
+		}
+		return array;
+	}
+}
@@ -0,0 +1,301 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Builds an HTMLIndex from the tokens of HTML documents. Documents are
+ * read as UTF-8 and tokenized with HTMLUtilities, decoding entities and
+ * joining tags split across lines, and their word and number tokens are
+ * indexed in lower case. Tags and punctuation are never
+ * indexed, and the tokenizer drops comments, so they are never indexed
+ * either. Numbers and the text of pre blocks can be left out. Run with:
+ *
+ *		java HTMLIndexer [-nonumbers] [-pre] dirOrFile ... -find "term or phrase" ...
+ *
+ * A directory is replaced by the .html and .htm files in it.
+ *
+ * @author Aditya Dendukuri
+ * @since January 20 2025
+ */
+public class HTMLIndexer implements TokenSink {
+
+	/**
+	 * The postings of one term while documents are being added.
+	 */
+	private static class Term {
+		private final VarIntBuffer postings = new VarIntBuffer();
+		private int documentCount;
+		private int lastDocument;			// last document written to postings
+		private int[] positions = new int[4];	// positions in the current document
+		private int positionCount;
+	}
+
+	private final HashMap<String, Term> terms;
+	private final List<String> documentNames;
+	private final List<Term> termsInDocument;	// terms seen in the current document
+	private boolean indexNumbers;
+	private boolean indexPreformatted;
+	private int position;						// position of the next token in the document
+
+	public static void main(String[] args) {
+		HTMLIndexer indexer = new HTMLIndexer();
+		List<String> queries = new ArrayList<>();
+		boolean finding = false;
+		for (String arg : args) {
+			if (arg.equals("-nonumbers")) {
+				indexer.setIndexNumbers(false);
+			} else if (arg.equals("-pre")) {
+				indexer.setIndexPreformatted(true);
+			} else if (arg.equals("-find")) {
+				finding = true;
+			} else if (finding) {
+				queries.add(arg);
+			} else {
+				indexer.addFiles(arg);
+			}
+		}
+		if (indexer.documentNames.isEmpty()) {
+			System.out.println("Usage: java HTMLIndexer [-nonumbers] [-pre] dirOrFile ... -find \"term or phrase\" ...");
+			System.exit(0);
+		}
+
+		HTMLIndex index = indexer.build();
+		System.out.printf("%d documents, %d terms, %d bytes of postings%n",
+				index.getDocumentCount(), index.getTermCount(), index.getPostingsSize());
+		for (String query : queries) {
+			int[] documents = index.lookupPhrase(query);
+			System.out.println("\"" + query + "\": " + documents.length + " documents");
+			for (int document : documents) {
+				System.out.println("  " + index.getDocumentName(document));
+			}
+		}
+	}
+
+	/**
+	 * Creates an indexer with no documents that indexes numbers but not
+	 * the text of pre blocks.
+	 */
+	public HTMLIndexer() {
+		terms = new HashMap<>();
+		documentNames = new ArrayList<>();
+		termsInDocument = new ArrayList<>();
+		indexNumbers = true;
+		indexPreformatted = false;
+	}
+
+	/**
+	 * @param indexNumbers true to index number tokens as terms
+	 */
+	public void setIndexNumbers(boolean indexNumbers) {
+		this.indexNumbers = indexNumbers;
+	}
+
+	/**
+	 * @param indexPreformatted true to index the words and numbers in pre
+	 *                          blocks, split at anything but a letter or digit
+	 */
+	public void setIndexPreformatted(boolean indexPreformatted) {
+		this.indexPreformatted = indexPreformatted;
+	}
+
+	/**
+	 * Adds a file, or every HTML file in a directory, as documents named
+	 * by their paths. A file that can not be read is reported and skipped.
+	 *
+	 * @param name a file or directory name
+	 */
+	public void addFiles(String name) {
+		File file = new File(name);
+		if (!file.isDirectory()) {
+			try {
+				addDocument(name, FileUtils.openReader(name));
+			} catch (IOException e) {
+				System.err.println("Error: Can not read " + name + ": " + e.getMessage());
+			}
+			return;
+		}
+		File[] children = file.listFiles((dir, child) ->
+				child.endsWith(".html") || child.endsWith(".htm"));
+		if (children != null) {
+			Arrays.sort(children);
+			for (File child : children) {
+				addFiles(child.getPath());
+			}
+		}
+	}
+
+	/**
+	 * Tokenizes a document line by line and adds its terms to the index.
+	 * A tag split across lines is joined into one token by a LineJoiner,
+	 * so its attributes are never indexed. The reader is closed afterwards.
+	 * If it can not be read, none of the document is indexed.
+	 *
+	 * @param name  the name the document is found by
+	 * @param input the HTML of the document
+	 * @return the number of the document
+	 * @throws IOException if the document can not be read
+	 */
+	public int addDocument(String name, Reader input) throws IOException {
+		HTMLUtilities util = new HTMLUtilities();
+		util.setDecodeEntities(true);
+		LineJoiner joiner = new LineJoiner(util);
+		TokenBuffer tokens = new TokenBuffer();
+		position = 0;
+		try (BufferedReader lines = new BufferedReader(input)) {
+			String line;
+			while ((line = lines.readLine()) != null) {
+				if (joiner.tokenizeLine(line, tokens) > 0) {
+					indexTokens(tokens);
+				}
+			}
+			if (joiner.finish(tokens) > 0) {
+				indexTokens(tokens);
+			}
+		} catch (IOException e) {
+			// leave out the part of the document read so far, and the
+			// terms no other document holds
+			for (Term term : termsInDocument) {
+				term.positionCount = 0;
+			}
+			termsInDocument.clear();
+			terms.values().removeIf(term -> term.documentCount == 0);
+			throw e;
+		}
+		finishDocument();
+		documentNames.add(name);
+		return documentNames.size() - 1;
+	}
+
+	/**
+	 * Indexes the tokens of the lines just tokenized.
+	 *
+	 * @param tokens the tokens of one or more lines of the current document
+	 */
+	private void indexTokens(TokenBuffer tokens) {
+		for (int i = 0; i < tokens.size(); i++) {
+			addToken(tokens.getSource(i), tokens.getStart(i), tokens.getLength(i), tokens.getType(i));
+		}
+	}
+
+	/**
+	 * Indexes one token of the current document.
+	 */
+	@Override
+	public void addToken(CharSequence source, int start, int length, TokenType type) {
+		if (type == TokenType.WORD || (type == TokenType.NUMBER && indexNumbers && length > 0)) {
+			addTerm(source.subSequence(start, start + length).toString());
+		} else if (type == TokenType.PREFORMAT && indexPreformatted) {
+			int end = start + length;
+			int wordStart = -1;
+			for (int i = start; i <= end; i++) {
+				boolean inWord = i < end && Character.isLetterOrDigit(source.charAt(i));
+				if (inWord && wordStart == -1) {
+					wordStart = i;
+				} else if (!inWord && wordStart != -1) {
+					addTerm(source.subSequence(wordStart, i).toString());
+					wordStart = -1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Builds the index of every document added so far. The indexer can
+	 * go on adding documents and build again.
+	 *
+	 * @return the index
+	 */
+	public HTMLIndex build() {
+		String[] sortedTerms = terms.keySet().toArray(new String[0]);
+		Arrays.sort(sortedTerms);
+		int[] documentCounts = new int[sortedTerms.length];
+		int[] postingsStarts = new int[sortedTerms.length + 1];
+		VarIntBuffer postings = new VarIntBuffer();
+		for (int t = 0; t < sortedTerms.length; t++) {
+			Term term = terms.get(sortedTerms[t]);
+			documentCounts[t] = term.documentCount;
+			postingsStarts[t] = postings.size();
+			postings.writeBytes(term.postings.toByteArray(), 0, term.postings.size());
+		}
+		postingsStarts[sortedTerms.length] = postings.size();
+		return new HTMLIndex(documentNames.toArray(new String[0]), sortedTerms, documentCounts,
+				postingsStarts, postings.toByteArray(), indexNumbers);
+	}
+
+	/**
+	 * Splits text into the terms it would be indexed as, for looking up
+	 * a phrase.
+	 *
+	 * @param text         the text, which may contain HTML
+	 * @param indexNumbers true if numbers were indexed, so are terms
+	 * @return its word terms, and number terms if numbers were indexed, in order
+	 */
+	static List<String> terms(String text, boolean indexNumbers) {
+		List<String> found = new ArrayList<>();
+		HTMLUtilities util = new HTMLUtilities();
+		util.setDecodeEntities(true);
+		util.tokenize(text, 0, text.length(), (source, start, length, type) -> {
+			if ((type == TokenType.WORD || (type == TokenType.NUMBER && indexNumbers)) && length > 0) {
+				found.add(normalize(source.subSequence(start, start + length).toString()));
+			}
+		});
+		return found;
+	}
+
+	/**
+	 * @param term a word or number as it appears in a document
+	 * @return the term it is indexed as
+	 */
+	static String normalize(String term) {
+		return term.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Notes that a term appears at the next position of the document.
+	 *
+	 * @param text the word or number
+	 */
+	private void addTerm(String text) {
+		String key = normalize(text);
+		Term term = terms.get(key);
+		if (term == null) {
+			term = new Term();
+			terms.put(key, term);
+		}
+		if (term.positionCount == 0) {
+			termsInDocument.add(term);
+		}
+		if (term.positionCount == term.positions.length) {
+			term.positions = Arrays.copyOf(term.positions, term.positions.length * 2);
+		}
+		term.positions[term.positionCount++] = position++;
+	}
+
+	/**
+	 * Writes the positions of every term of the current document to its
+	 * postings: the gap from the term's last document, the number of
+	 * positions, and the gaps between them.
+	 */
+	private void finishDocument() {
+		int document = documentNames.size();
+		for (Term term : termsInDocument) {
+			term.postings.writeVarInt(document - term.lastDocument);
+			term.postings.writeVarInt(term.positionCount);
+			int previous = 0;
+			for (int p = 0; p < term.positionCount; p++) {
+				term.postings.writeVarInt(term.positions[p] - previous);
+				previous = term.positions[p];
+			}
+			term.lastDocument = document;
+			term.documentCount++;
+			term.positionCount = 0;
+		}
+		termsInDocument.clear();
+	}
+}
@@ -1,5 +1,13 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.List;
 
 /**
  * A class responsible for parsing and rendering HTML content into formatted output.
@@ -11,228 +19,561 @@ import java.util.Scanner;
  */
 public class HTMLRender {
 
-    private String[] tokenArray;
-    private final int MAX_TOKENS = 100000;
+    // Entities such as &amp;amp; are decoded by every tokenizer the renderer uses
+    static final boolean DECODE_ENTITIES = true;
 
-    private SimpleHtmlRenderer render;
-    private HtmlPrinter browser;
+    private RenderPrinter printer;      // where the output finally goes
+    private RenderPrinter browser;      // what the render state machine prints to
     private HTMLUtilities htmlUtilities;
 
-    private enum ParserState {
-        DEFAULT, BOLD, ITALIC, PRE_FORMATTED, HEADER
-    };
+    // Render state, carried from one token to the next
+    private StyleStack styles;
+    private LineBreaker lineBreaker;
+    private int lineWidth;              // width used on the current line, when filling greedily
+
+    // Paragraph held back until it ends, when breaking lines optimally
+    private ArrayList<String> paragraphText;
+    private ArrayList<Integer> paragraphStyles;
+    private ArrayList<Boolean> paragraphSpaces;     // whether a space follows each token
+
+    // Token held back until the one after it is known
+    private String pendingToken;
+    private TokenType pendingType;
+    private TagName pendingTag;
+
+    private LineTokenCache lineCache;   // tokens kept between calls to runIncremental
+    private RenderCache renderCache;    // output kept by runCached, null for none
 
     /**
      * Constructor for HTMLRenderer.
-     * Initializes the necessary components for HTML rendering.
+     * Initializes the necessary components for HTML rendering
+     * in a SimpleHtmlRenderer window.
      */
     public HTMLRender() {
-        tokenArray = new String[MAX_TOKENS];
-        render = new SimpleHtmlRenderer();
-        browser = render.getHtmlPrinter();
+        this(new SwingPrinter());
+        setLineBreaker(new LineBreaker(LineBreaker.Mode.GREEDY, true));
+    }
+
+    /**
+     * Constructor for HTMLRenderer that renders to the given printer,
+     * for example a TextPrinter when there is no display. Runs of text
+     * in the same style reach the printer as one call. Lines are filled
+     * greedily, measuring every char of a style as the same width.
+     *
+     * @param printer where the rendered output goes
+     */
+    public HTMLRender(RenderPrinter printer) {
+        this.printer = printer;
+        browser = new CoalescingPrinter(printer);
         htmlUtilities = new HTMLUtilities();
+        htmlUtilities.setDecodeEntities(DECODE_ENTITIES);
+        styles = new StyleStack();
+        lineCache = new LineTokenCache(DECODE_ENTITIES);
+        lineBreaker = new LineBreaker(LineBreaker.Mode.GREEDY, false);
+        paragraphText = new ArrayList<>();
+        paragraphStyles = new ArrayList<>();
+        paragraphSpaces = new ArrayList<>();
+    }
+
+    /**
+     * Sets how text is measured and where lines wrap.
+     *
+     * @param lineBreaker the line breaker to use from the next render on
+     */
+    public void setLineBreaker(LineBreaker lineBreaker) {
+        this.lineBreaker = lineBreaker;
+    }
+
+    /**
+     * Sets the cache runCached keeps rendered documents in. One cache can
+     * be shared by several renderers.
+     *
+     * @param renderCache the cache, or null to always render
+     */
+    public void setRenderCache(RenderCache renderCache) {
+        this.renderCache = renderCache;
     }
 
     /**
      * Main method to run the HTMLRenderer.
      * Takes an input file name as an argument and processes the file.
+     * With -text or -ansi before the file name the output is written to
+     * the console as plain or ANSI-styled text instead of a window, and
+     * with -optimal the lines of each paragraph are filled evenly. A file
+     * ending in .htok is read as a TokenFile of tokens saved earlier.
      *
-     * @param arguments Command line arguments, where the first argument is the input file name.
+     * @param arguments Command line arguments, where the last argument is the input file name.
      */
     public static void main(String[] arguments) {
-        HTMLRender renderer = new HTMLRender();
-        String inputFile = arguments[0];
-        renderer.run(inputFile);
+        boolean text = false;
+        boolean ansi = false;
+        boolean optimal = false;
+        for (int i = 0; i < arguments.length - 1; i++) {
+            text |= arguments[i].equals("-text");
+            ansi |= arguments[i].equals("-ansi");
+            optimal |= arguments[i].equals("-optimal");
+        }
+        HTMLRender renderer;
+        if (text || ansi) {
+            Writer console = new OutputStreamWriter(System.out);
+            renderer = new HTMLRender(new TextPrinter(console, ansi));
+        } else {
+            renderer = new HTMLRender();
+        }
+        if (optimal) {
+            renderer.setLineBreaker(new LineBreaker(LineBreaker.Mode.OPTIMAL, !(text || ansi)));
+        }
+        String inputFile = arguments[arguments.length - 1];
+        if (inputFile.endsWith(TokenFile.EXTENSION)) {
+            renderer.runTokenFile(inputFile);
+        } else {
+            renderer.run(inputFile);
+        }
     }
 
     /**
-     * Processes the HTML input file and renders the formatted output.
+     * Processes the HTML input file, read as UTF-8 like the other run
+     * methods, and renders the formatted output. Tokens are rendered as
+     * soon as they are read, holding back only one token to look at what
+     * follows it, so memory use is bounded by the longest line rather than
+     * the size of the document.
      *
      * @param inputFile The name of the input file to be processed.
      */
     public void run(String inputFile) {
-        Scanner scanner;
-        ArrayList<String> tokenList = new ArrayList<>();
+        try {
+            render(FileUtils.openReader(inputFile));
+        } catch (IOException e) {
+            System.err.println("Error: Can not open " + inputFile + " for reading.");
+            System.exit(72);
+        }
+    }
+
+    /**
+     * Renders HTML read from any Reader, such as a StringReader holding a
+     * document already in memory. The reader is closed afterwards.
+     *
+     * @param input the HTML to render
+     * @throws IOException if reading the input fails
+     */
+    public void render(Reader input) throws IOException {
+        startRender();
+        try (HTMLTokenStream stream = new HTMLTokenStream(input, htmlUtilities)) {
+            while (stream.hasNext()) {
+                String token = stream.next();
+                feedToken(token, stream.getType(), stream.getTagName());
+            }
+        }
+        finishRender();
+    }
+
+    /**
+     * Processes the HTML input file like run, but first looks its content
+     * up in the render cache. If the same bytes were rendered before with
+     * the same line-breaking settings, the recorded printer calls are
+     * replayed instead of tokenizing and rendering again; otherwise the
+     * document is rendered, recorded, and cached.
+     *
+     * @param inputFile The name of the input file to be processed.
+     */
+    public void runCached(String inputFile) {
+        if (renderCache == null) {
+            run(inputFile);
+            return;
+        }
+        try {
+            byte[] content = Files.readAllBytes(Paths.get(inputFile));
+            String key = RenderCache.key(content, lineBreaker);
+            RecordingPrinter recording = renderCache.get(key);
+            if (recording == null) {
+                recording = new RecordingPrinter();
+                RenderPrinter output = browser;
+                browser = new CoalescingPrinter(recording);
+                try {
+                    render(new InputStreamReader(new ByteArrayInputStream(content)));
+                } finally {
+                    browser = output;
+                }
+                renderCache.put(key, recording);
+            }
+            recording.replay(printer);
+            printer.flush();
+        } catch (IOException e) {
+            System.err.println("Error: Can not open " + inputFile + " for reading.");
+            System.exit(72);
+        }
+    }
+
+    /**
+     * Renders the HTML input file again after it has been edited. The
+     * tokens of every line are kept from the last call, and only lines
+     * from the first change up to where the tokenizer state matches the
+     * last run again are tokenized, which makes re-rendering a large
+     * document after a small edit fast. A tag split across lines is
+     * joined into one token, as in run.
+     *
+     * @param inputFile The name of the input file to be processed.
+     * @return the number of lines that had to be tokenized
+     */
+    public int runIncremental(String inputFile) {
+        List<String> lines;
+        try {
+            lines = FileUtils.readAllLines(inputFile);
+        } catch (IOException e) {
+            System.err.println("Error: Can not open " + inputFile + " for reading.");
+            System.exit(72);
+            return 0;
+        }
+        int tokenized = lineCache.update(lines);
 
-        // Open the file and read each line
-        scanner = FileUtils.openToRead(inputFile);
+        startRender();
+        for (int line = 0; line < lineCache.getLineCount(); line++) {
+            feedTokens(lineCache.getLineTokens(line));
+        }
+        finishRender();
+        return tokenized;
+    }
 
-        while (scanner.hasNext()) {
-            String[] extractedTokens = htmlUtilities.tokenizeHTMLString(scanner.nextLine());
-            for (String token : extractedTokens) {
-                if (token != null) {
-                    tokenList.add(token);
+    /**
+     * Processes the HTML input file like run, but reads it through a
+     * memory-mapped MappedLineReader and tokenizes each line straight out
+     * of the reader's buffer. A tag split across lines is joined into one
+     * token, as in run.
+     *
+     * @param inputFile The name of the input file to be processed.
+     */
+    public void runMapped(String inputFile) {
+        TokenBuffer tokens = new TokenBuffer();
+        LineJoiner joiner = new LineJoiner(htmlUtilities);
+        startRender();
+        try (MappedLineReader input = new MappedLineReader(inputFile)) {
+            while (input.nextLine()) {
+                if (joiner.tokenizeLine(input.getLine(), tokens) > 0) {
+                    feedTokens(tokens);
                 }
             }
+            if (joiner.finish(tokens) > 0) {
+                feedTokens(tokens);
+            }
+        } catch (IOException e) {
+            System.err.println("Error: Can not open " + inputFile + " for reading.");
+            System.exit(72);
+        }
+        finishRender();
+    }
+
+    /**
+     * Renders a document that was tokenized and saved earlier as a
+     * TokenFile, skipping tokenizing altogether. A file whose entities were not
+     * decoded the way this renderer decodes them is refused.
+     *
+     * @param tokenFile The name of the token file to be processed.
+     */
+    public void runTokenFile(String tokenFile) {
+        TokenBuffer tokens = new TokenBuffer();
+        startRender();
+        try {
+            TokenFile input = TokenFile.open(tokenFile);
+            if (input.isEntitiesDecoded() != DECODE_ENTITIES) {
+                throw new IOException("it was tokenized " + (DECODE_ENTITIES ? "without" : "with")
+                        + " decoding entities, unlike this renderer; make it again with java TokenFile");
+            }
+            for (int line = 0; line < input.getLineCount(); line++) {
+                tokens.clear();
+                input.readLine(line, tokens);
+                feedTokens(tokens);
+            }
+        } catch (IOException e) {
+            System.err.println("Error: Can not open " + tokenFile + " for reading: " + e.getMessage());
+            System.exit(72);
+        }
+        finishRender();
+    }
+
+    /**
+     * Resets the render state for a new document. The tokenizer goes
+     * back to NONE too, so a document left inside an unclosed comment or
+     * pre does not swallow the next one.
+     */
+    private void startRender() {
+        htmlUtilities.setState(HTMLUtilities.TokenState.NONE);
+        styles.clear();
+        lineWidth = 0;
+        pendingToken = null;
+        clearParagraph();
+    }
+
+    /**
+     * Takes the next token of the document and renders the one before it,
+     * now that it is known what follows it.
+     *
+     * @param token the token
+     * @param type  the kind of the token
+     * @param tag   the tag the token names, OTHER if it is not a known tag
+     */
+    private void feedToken(String token, TokenType type, TagName tag) {
+        if (pendingToken != null) {
+            renderToken(pendingToken, pendingType, pendingTag, type, tag);
         }
+        pendingToken = token;
+        pendingType = type;
+        pendingTag = tag;
+    }
 
-        String[] tokens = new String[tokenList.size()];
-        for (int i = 0; i < tokenList.size(); i++) {
-            tokens[i] = tokenList.get(i);
+    /**
+     * Takes every token in a buffer, in order.
+     *
+     * @param tokens the next tokens of the document
+     */
+    private void feedTokens(TokenBuffer tokens) {
+        for (int t = 0; t < tokens.size(); t++) {
+            feedToken(tokens.getToken(t), tokens.getType(t), tokens.getTagName(t));
         }
+    }
 
-        int tokenCount = tokens.length;
-        int currentIndex = 0;
-        ParserState currentParserState = ParserState.DEFAULT;
-        int headerLevel = 0;
-        int characterCount = 0;
-        int wrapLimit = 80;
+    /**
+     * Renders the last token of the document and flushes the printer.
+     */
+    private void finishRender() {
+        if (pendingToken != null) {
+            renderToken(pendingToken, pendingType, pendingTag, null, TagName.OTHER);
+            pendingToken = null;
+        }
+        endParagraph();
+        browser.flush();
+    }
 
-        // Process each token and render accordingly
-        while (currentIndex < tokenCount) {
-            String currentToken = tokens[currentIndex];
+    /**
+     * Renders one token and updates the render state. Style tags are
+     * tracked on a stack, so nested tags like <b><i>x</i>y</b> render
+     * correctly in one pass.
+     *
+     * @param currentToken the token to render
+     * @param type         the kind of the token
+     * @param tag          the tag the token names, OTHER if it is not a known tag
+     * @param nextType     the kind of the token after it, null at the end of the document
+     * @param nextTag      the tag the token after it names
+     */
+    private void renderToken(String currentToken, TokenType type, TagName tag,
+            TokenType nextType, TagName nextTag) {
+        boolean closing = type == TokenType.CLOSE_TAG;
 
-            if (currentToken != null) {
-                switch (currentToken.toLowerCase()) {
-                    case "<p>":
-                    case "</p>":
-                    case "<pre>":
-                    case "</pre>":
-                    case "<br>":
+        if (type == TokenType.OPEN_TAG || closing) {
+            switch (tag) {
+                case P:
+                case BR:
+                    if (!closing || tag == TagName.P) {
+                        endParagraph();
                         browser.printBreak();
-                        characterCount = 0;
-                        if (currentToken.equals("<pre>")) {
-                            currentParserState = ParserState.PRE_FORMATTED;
-                        } else {
-                            currentParserState = ParserState.DEFAULT;
-                        }
-                        break;
-
-                    case "<b>":
-                        currentParserState = ParserState.BOLD;
-                        break;
-
-                    case "</b>":
-                        currentParserState = ParserState.DEFAULT;
-                        break;
-
-                    case "<i>":
-                        currentParserState = ParserState.ITALIC;
-                        break;
-
-                    case "</i>":
-                        currentParserState = ParserState.DEFAULT;
-                        break;
-
-                    case "<q>":
-                        browser.print("\"");
-                        break;
-
-                    case "</q>":
-                        browser.print("\" ");
-                        break;
-
-                    case "<hr>":
+                        lineWidth = 0;
+                    }
+                    break;
+
+                case HR:
+                    if (!closing) {
+                        endParagraph();
                         browser.printHorizontalRule();
-                        characterCount = 0;
-                        break;
-
-                    case "<h1>":
-                    case "<h2>":
-                    case "<h3>":
-                    case "<h4>":
-                    case "<h5>":
-                    case "<h6>":
-                        currentParserState = ParserState.HEADER;
-                        headerLevel = Integer.parseInt(currentToken.substring(2, 3));
-                        wrapLimit = 40 + (headerLevel - 1) * 10;
-                        characterCount = 0;
+                        lineWidth = 0;
+                    }
+                    break;
+
+                case PRE:
+                    endParagraph();
+                    browser.printBreak();
+                    lineWidth = 0;
+                    if (closing) {
+                        styles.close(tag);
+                    } else if (currentToken.startsWith("<pre")) {
+                        styles.open(tag);
+                    }
+                    break;
+
+                case Q:
+                    printQuote(closing);
+                    openOrClose(tag, closing);
+                    break;
+
+                case H1:
+                case H2:
+                case H3:
+                case H4:
+                case H5:
+                case H6:
+                    if (!closing) {
+                        endParagraph();
+                        lineWidth = 0;
                         browser.printBreak();
-                        break;
-
-                    case "</h1>":
-                    case "</h2>":
-                    case "</h3>":
-                    case "</h4>":
-                    case "</h5>":
-                    case "</h6>":
-                        currentParserState = ParserState.DEFAULT;
-                        wrapLimit = 80;
-                        break; 
-
-                    default:
-                        if (!currentToken.startsWith("<") && !currentToken.endsWith(">")) {
-                            if (currentParserState == ParserState.PRE_FORMATTED) {
-                                browser.printPreformattedText(currentToken);
-                                browser.printBreak();
-                            } else {
-                                if (characterCount + currentToken.length() > wrapLimit) {
-                                    browser.println();
-                                    characterCount = 0;
-                                }
-
-                                // Render token based on current state
-                                switch (currentParserState) {
-                                    case BOLD:
-                                        browser.printBold(currentToken);
-                                        break;
-
-                                    case ITALIC:
-                                        browser.printItalic(currentToken);
-                                        break;
-
-                                    case HEADER:
-                                        switch (headerLevel) {
-                                            case 1:
-                                                browser.printHeading1(currentToken);
-                                                break;
-                                            case 2:
-                                                browser.printHeading2(currentToken);
-                                                break;
-                                            case 3:
-                                                browser.printHeading3(currentToken);
-                                                break;
-                                            case 4:
-                                                browser.printHeading4(currentToken);
-                                                break;
-                                            case 5:
-                                                browser.printHeading5(currentToken);
-                                                break;
-                                            case 6:
-                                                browser.printHeading6(currentToken);
-                                                break;
-                                        }
-                                        break;
-
-                                    default:
-                                        browser.print(currentToken);
-                                        break;
-                                }
-                            }
-
-                            characterCount += currentToken.length() + 1;
-                            // Handle spacing between tokens based on punctuation
-                            if (!".,;()?!=&~+:</q></Q>-".contains(tokens[currentIndex + 1])) {
-                                if (currentParserState == ParserState.HEADER) {
-                                    switch (headerLevel) {
-                                        case 1:
-                                            browser.printHeading1(" ");
-                                            break;
-                                        case 2:
-                                            browser.printHeading2(" ");
-                                            break;
-                                        case 3:
-                                            browser.printHeading3(" ");
-                                            break;
-                                        case 4:
-                                            browser.printHeading4(" ");
-                                            break;
-                                        case 5:
-                                            browser.printHeading5(" ");
-                                            break;
-                                        case 6:
-                                            browser.printHeading6(" ");
-                                            break;
-                                    }
-                                } else {
-                                    browser.print(" ");
-                                }
-                            }
-                        }
-                        break;
-                }
-                currentIndex++;
+                    }
+                    openOrClose(tag, closing);
+                    break;
+
+                default:
+                    openOrClose(tag, closing);
+                    break;
+            }
+            return;
+        }
+
+        // No space before punctuation or a closing quote
+        boolean spaceAfter = nextType != null && needsSpaceBefore(nextType, nextTag);
+        if (styles.isPreformatted()) {
+            endParagraph();
+            browser.printPreformattedText(currentToken);
+            browser.printBreak();
+            if (spaceAfter) {
+                browser.print(" ");
+            }
+        } else if (lineBreaker.getMode() == LineBreaker.Mode.OPTIMAL) {
+            addToParagraph(currentToken, styles.getStyle(), spaceAfter);
+        } else {
+            int style = styles.getStyle();
+            int width = lineBreaker.measure(currentToken, style);
+            if (lineWidth + width > LineBreaker.LINE_WIDTH) {
+                browser.println();
+                lineWidth = 0;
+            }
+            printStyled(currentToken, style);
+            lineWidth += width + lineBreaker.spaceWidth(style);
+            if (spaceAfter) {
+                printSpace(style);
+            }
+        }
+    }
+
+    /**
+     * Prints an opening or closing quote mark. When lines are filled
+     * greedily the mark does not count toward the width of the line.
+     *
+     * @param closing true for the closing mark, which a space follows
+     */
+    private void printQuote(boolean closing) {
+        if (lineBreaker.getMode() == LineBreaker.Mode.OPTIMAL) {
+            addToParagraph("\"", 0, closing);
+        } else {
+            browser.print(closing ? "\" " : "\"");
+        }
+    }
+
+    /**
+     * Prints text in the given style, headers first.
+     *
+     * @param text  the text to print
+     * @param style the StyleStack style bits
+     */
+    private void printStyled(String text, int style) {
+        int headerLevel = StyleStack.headingLevel(style);
+        if (headerLevel > 0) {
+            browser.printHeading(headerLevel, text);
+        } else if ((style & StyleStack.BOLD) != 0) {
+            browser.printBold(text);
+        } else if ((style & StyleStack.ITALIC) != 0) {
+            browser.printItalic(text);
+        } else {
+            browser.print(text);
+        }
+    }
+
+    /**
+     * Prints the space between two tokens. Spaces inside a header are
+     * part of the header; otherwise they are printed unstyled.
+     *
+     * @param style the StyleStack style bits of the token before the space
+     */
+    private void printSpace(int style) {
+        int headerLevel = StyleStack.headingLevel(style);
+        if (headerLevel > 0) {
+            browser.printHeading(headerLevel, " ");
+        } else {
+            browser.print(" ");
+        }
+    }
+
+    /**
+     * Holds back a token of the current paragraph, to be printed once
+     * the paragraph ends and its line breaks are known.
+     *
+     * @param text       the token
+     * @param style      the StyleStack style bits to print it in
+     * @param spaceAfter true if a space follows the token
+     */
+    private void addToParagraph(String text, int style, boolean spaceAfter) {
+        paragraphText.add(text);
+        paragraphStyles.add(style);
+        paragraphSpaces.add(spaceAfter);
+    }
+
+    /**
+     * Breaks the held back paragraph into evenly filled lines and prints
+     * it. Called before anything that starts a new line on its own, like
+     * a break or a horizontal rule. Does nothing when lines are filled
+     * greedily, since then nothing is held back.
+     */
+    private void endParagraph() {
+        int count = paragraphText.size();
+        if (count == 0) {
+            return;
+        }
+        int[] widths = new int[count];
+        int[] spaceWidths = new int[count];
+        for (int i = 0; i < count; i++) {
+            int style = paragraphStyles.get(i);
+            widths[i] = lineBreaker.measure(paragraphText.get(i), style);
+            spaceWidths[i] = paragraphSpaces.get(i) ? lineBreaker.spaceWidth(style) : 0;
+        }
+
+        int[] lineStarts = lineBreaker.breakParagraph(widths, spaceWidths, count);
+        int line = 0;
+        for (int i = 0; i < count; i++) {
+            if (line + 1 < lineStarts.length && lineStarts[line + 1] == i) {
+                browser.println();
+                line++;
+            }
+            int style = paragraphStyles.get(i);
+            printStyled(paragraphText.get(i), style);
+            boolean endsLine = line + 1 < lineStarts.length && lineStarts[line + 1] == i + 1;
+            if (paragraphSpaces.get(i) && !endsLine) {
+                printSpace(style);
             }
         }
+        clearParagraph();
+    }
+
+    /**
+     * Drops the held back paragraph.
+     */
+    private void clearParagraph() {
+        paragraphText.clear();
+        paragraphStyles.clear();
+        paragraphSpaces.clear();
+    }
+
+    /**
+     * Opens or closes a style tag on the style stack.
+     *
+     * @param tag     the tag
+     * @param closing true for a closing tag
+     */
+    private void openOrClose(TagName tag, boolean closing) {
+        if (closing) {
+            styles.close(tag);
+        } else {
+            styles.open(tag);
+        }
+    }
+
+    /**
+     * Checks whether a token should be separated from the token before it
+     * by a space. Punctuation and closing quotes sit right after the text
+     * before them.
+     *
+     * @param type the kind of the token to check
+     * @param tag  the tag the token names
+     * @return true if a space should be printed before the token
+     */
+    private boolean needsSpaceBefore(TokenType type, TagName tag) {
+        if (type == TokenType.PUNCTUATION) {
+            return false;
+        }
+        return !(type == TokenType.CLOSE_TAG && tag == TagName.Q);
     }
-}
\ No newline at end of file
+}
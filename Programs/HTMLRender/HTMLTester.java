@@ -1,4 +1,4 @@
-import java.util.Scanner;
+import java.io.IOException;
 
 /**
  *	Test class for HTMLUtilities
@@ -6,7 +6,7 @@ import java.util.Scanner;
  *
  *		java HTMLTester <htmlFileName>
  *
- *	Requires the HTMLUtilities and FileUtils classes.
+ *	Requires the HTMLUtilities and MappedLineReader classes.
  *
  *	@author Mr Greenstein
  */
@@ -31,7 +31,7 @@ public class HTMLTester {
 	 *	@param args		the String array holding the command line arguments
 	 */
 	public void run(String[] args) {
-		Scanner input = null;
+		MappedLineReader input = null;
 		String fileName = "";
 		// if the command line contains the file name, then store it
 		if (args.length > 0)
@@ -43,15 +43,25 @@ public class HTMLTester {
 		}
 		
 		// Open the HTML file
-		input = FileUtils.openToRead(fileName);
+		try {
+			input = new MappedLineReader(fileName);
+		} catch (IOException e) {
+			System.err.println("Error: Can not open " + fileName + " for reading.");
+			System.exit(72);
+		}
 		
 		// Read each line of the HTML file, tokenize, then print tokens
-		while (input.hasNext()) {
-			String line = input.nextLine();
-			System.out.println("\n" + line);
-			String [] tokens = util.tokenizeHTMLString(line);
-			util.printTokens(tokens);
+		try {
+			while (input.nextLine()) {
+				String line = input.getLine().toString();
+				System.out.println("\n" + line);
+				String [] tokens = util.tokenizeHTMLString(line);
+				util.printTokens(tokens);
+			}
+			input.close();
+		} catch (IOException e) {
+			System.err.println("Error: Can not read " + fileName + ": " + e.getMessage());
+			System.exit(72);
 		}
-		input.close();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,273 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Tokenizes a whole HTML document from a Reader, handing out tokens one at
+ * a time as they are asked for. The input is read in fixed-size chunks and
+ * only the line being tokenized is kept in memory, so memory use is bounded
+ * by the longest line, not the size of the document. A document that is
+ * one long line, such as minified HTML, is held in memory whole. Comment
+ * and preformat state carries over from line to line and chunk to chunk.
+ * A tag that is still open at the end of a line is joined with the
+ * following lines, up to LineJoiner.MAX_JOINED_CHARS, so it comes out as
+ * one token. A line break ends a word or number like any other space, so
+ * a number is never joined across lines.
+ *
+ * @author Aditya Dendukuri
+ * @since December 6 2024
+ */
+public class HTMLTokenStream implements Iterator<String>, Closeable {
+
+	private static final int CHUNK_SIZE = 8192;				// chars read at a time
+
+	private final Reader reader;
+	private final HTMLUtilities utilities;
+	private final TokenBuffer lineTokens;	// tokens of the current line
+	private int nextToken;					// next token of lineTokens to hand out
+	private TokenType lastType;				// kind of the last token returned
+	private TagName lastTagName;			// tag of the last token returned
+	private String lastToken;				// the last token returned
+
+	private char[] buffer;					// chars read but not yet tokenized
+	private int position;					// start of the next line in buffer
+	private int limit;						// end of the chars read into buffer
+	private boolean endOfInput;				// true once the reader is used up
+
+	/**
+	 * Creates a stream that tokenizes everything the reader supplies.
+	 *
+	 * @param reader the HTML document
+	 */
+	public HTMLTokenStream(Reader reader) {
+		this(reader, new HTMLUtilities());
+	}
+
+	/**
+	 * Creates a stream that tokenizes a channel of bytes in the given charset.
+	 *
+	 * @param channel the HTML document
+	 * @param charset the encoding of the bytes
+	 */
+	public HTMLTokenStream(ReadableByteChannel channel, Charset charset) {
+		this(Channels.newReader(channel, charset.newDecoder(), -1));
+	}
+
+	/**
+	 * Creates a stream that tokenizes everything the reader supplies using
+	 * the given tokenizer, so its comment and preformat state is shared.
+	 *
+	 * @param reader    the HTML document
+	 * @param utilities the tokenizer to use
+	 */
+	public HTMLTokenStream(Reader reader, HTMLUtilities utilities) {
+		this.reader = reader;
+		this.utilities = utilities;
+		lineTokens = new TokenBuffer();
+		nextToken = 0;
+		lastType = null;
+		lastTagName = TagName.OTHER;
+		buffer = new char[CHUNK_SIZE];
+		position = 0;
+		limit = 0;
+		endOfInput = false;
+	}
+
+	/**
+	 * @return true if there is another token in the document
+	 * @throws UncheckedIOException if reading the document fails
+	 */
+	@Override
+	public boolean hasNext() {
+		try {
+			while (nextToken >= lineTokens.size()) {
+				if (!tokenizeNextLine()) {
+					return false;
+				}
+			}
+			return true;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return the next token in the document
+	 * @throws NoSuchElementException if there are no more tokens
+	 * @throws UncheckedIOException   if reading the document fails
+	 */
+	@Override
+	public String next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		lastType = lineTokens.getType(nextToken);
+		lastTagName = lineTokens.getTagName(nextToken);
+		lastToken = lineTokens.getToken(nextToken++);
+		return lastToken;
+	}
+
+	/**
+	 * @return the kind of the token last returned by next, null before
+	 *         the first call to next
+	 */
+	public TokenType getType() {
+		return lastType;
+	}
+
+	/**
+	 * @return the tag named by the token last returned by next, OTHER if
+	 *         it is not a known tag
+	 */
+	public TagName getTagName() {
+		return lastTagName;
+	}
+
+	/**
+	 * @return the attributes of the last token returned by next if it is
+	 *         a tag, parsed only when first used
+	 * @throws IllegalStateException if next has not been called
+	 */
+	public TagAttributes getAttributes() {
+		if (lastToken == null) {
+			throw new IllegalStateException("next has not been called");
+		}
+		return new TagAttributes(lastToken, 0, lastToken.length());
+	}
+
+	/**
+	 * @return the remaining tokens of the document as a sequential Stream
+	 */
+	public Stream<String> stream() {
+		Spliterator<String> tokens = Spliterators.spliteratorUnknownSize(this,
+				Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(tokens, false).onClose(() -> {
+			try {
+				close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	/**
+	 * Closes the underlying reader.
+	 *
+	 * @throws IOException if the reader cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	/**
+	 * Tokenizes the next line of the document into lineTokens, joining
+	 * following lines onto it while it ends inside an unclosed tag.
+	 *
+	 * @return true if a line was tokenized, false at the end of the document
+	 * @throws IOException if reading the document fails
+	 */
+	private boolean tokenizeNextLine() throws IOException {
+		lineTokens.clear();
+		nextToken = 0;
+
+		int end = findNewline(position);
+		if (end == position && end == limit) {
+			return false;
+		}
+
+		HTMLUtilities.TokenState startState = utilities.getState();
+		tokenizeLine(position, end);
+		while (end < limit && utilities.lineEndedInsideTag() && end - position < LineJoiner.MAX_JOINED_CHARS) {
+			end = findNewline(end + 1);
+			utilities.setState(startState);
+			lineTokens.clear();
+			tokenizeLine(position, end);
+		}
+
+		position = (end < limit) ? end + 1 : limit;
+		return true;
+	}
+
+	/**
+	 * Tokenizes buffer[start, end) into lineTokens, leaving off a '\r'
+	 * before the line break. The line is copied into a String first, since
+	 * the tokenizer reads a String much faster than a CharBuffer, and a
+	 * token taken from it is a plain substring.
+	 *
+	 * @param start the index of the first char of the line
+	 * @param end   the index of the line break, or limit for the last line
+	 */
+	private void tokenizeLine(int start, int end) {
+		int stop = (end > start && buffer[end - 1] == '\r') ? end - 1 : end;
+		String line = new String(buffer, start, stop - start);
+		utilities.tokenize(line, 0, line.length(), lineTokens);
+	}
+
+	/**
+	 * Finds the next '\n', reading more chunks into the buffer as needed.
+	 * Reading may move the chars not yet tokenized to the front of the
+	 * buffer, so position and any index taken before the call may change.
+	 *
+	 * @param from the index to start looking at
+	 * @return the index of the '\n', or limit if the document ends first
+	 * @throws IOException if reading the document fails
+	 */
+	private int findNewline(int from) throws IOException {
+		int index = from;
+		while (true) {
+			while (index < limit) {
+				if (buffer[index] == '\n') {
+					return index;
+				}
+				index++;
+			}
+			if (endOfInput) {
+				return limit;
+			}
+			index -= readChunk();
+		}
+	}
+
+	/**
+	 * Reads one more chunk onto the end of the buffer. Only when the buffer
+	 * is full are the chars not yet tokenized moved to its front, into a
+	 * buffer twice the size if they fill more than half of it, so moving
+	 * chars costs about as much as reading them however short the lines.
+	 * The buffer grows until it holds the longest line and never shrinks.
+	 *
+	 * @return how far the chars were moved toward the front of the buffer
+	 * @throws IOException if reading the document fails
+	 */
+	private int readChunk() throws IOException {
+		int moved = 0;
+		if (limit == buffer.length) {
+			moved = position;
+			char[] target = buffer;
+			if (limit - position > buffer.length / 2) {
+				target = new char[buffer.length * 2];
+			}
+			System.arraycopy(buffer, position, target, 0, limit - position);
+			buffer = target;
+			limit -= position;
+			position = 0;
+		}
+		int count = reader.read(buffer, limit, Math.min(CHUNK_SIZE, buffer.length - limit));
+		if (count == -1) {
+			endOfInput = true;
+		} else {
+			limit += count;
+		}
+		return moved;
+	}
+}
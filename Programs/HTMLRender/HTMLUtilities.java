@@ -1,3 +1,5 @@
+import java.nio.CharBuffer;
+
 /**
  * Utilities for handling HTML, tokenizes tags, words, numbers, and punctuation,
  * and handles comments and preformatted text.
@@ -9,12 +11,33 @@ public class HTMLUtilities {
 
 	// NONE = not nested in a block, COMMENT = inside a comment block
 	// PREFORMAT = inside a pre-format block
-	private enum TokenState {
+	enum TokenState {
 		NONE, COMMENT, PREFORMAT
 	};
 
 	private TokenState state = TokenState.NONE;
 
+	// true if the last line ended before the '>' of a tag
+	private boolean lineEndedInsideTag = false;
+
+	// reused by tokenizeHTMLString so each line only allocates its result
+	private final TokenBuffer lineTokens = new TokenBuffer();
+
+	// true to decode entities like &amp; while tokenizing
+	private boolean decodeEntities = false;
+
+	// a word with an entity in it can't be a span of the text, so it is
+	// built here: decoded chars so far, then the raw text from rawRunStart
+	private final StringBuilder entityWord = new StringBuilder();
+	private boolean inEntityWord = false;
+	private int rawRunStart = 0;
+
+	// counts kept for metrics, null when metrics are off
+	private TokenizerMetrics metrics = null;
+	private CountingSink countingSink = null;
+	private int commentChars = 0;		// chars of the line inside a comment
+	private int preformatChars = 0;		// chars of the line inside a pre block
+
 	/**
 	 * Break the HTML string into tokens. The array returned is
 	 * exactly the size of the number of tokens in the HTML string.
@@ -25,201 +48,493 @@ public class HTMLUtilities {
 	 * @return the String array of tokens
 	 */
 	public String[] tokenizeHTMLString(String str) {
-		String[] result = new String[10000];
-		int tokenIndex = 0;
-		String currentToken = "";
+		lineTokens.clear();
+		tokenize(str, 0, str.length(), lineTokens);
+		String[] tokens = lineTokens.toArray();
+		lineTokens.clear();
+		return tokens;
+	}
+
+	/**
+	 * Break the HTML string into tokens, handing each one to the sink as
+	 * it is found instead of collecting them into an array.
+	 *
+	 * @param str  the HTML string
+	 * @param sink receives every token in order
+	 */
+	public void tokenizeHTMLString(String str, TokenSink sink) {
+		tokenize(str, 0, str.length(), sink);
+	}
+
+	/**
+	 * Break part of a char array into tokens without creating any Strings.
+	 * Works exactly like tokenize(CharSequence, int, int, TokenSink).
+	 *
+	 * @param chars  the chars holding the HTML line
+	 * @param offset the index of the first char of the line
+	 * @param length the number of chars in the line
+	 * @param tokens receives the token spans in order
+	 */
+	public void tokenize(char[] chars, int offset, int length, TokenSink tokens) {
+		tokenize(CharBuffer.wrap(chars), offset, offset + length, tokens);
+	}
+
+	/**
+	 * Break part of an array of UTF-8 bytes into tokens without decoding
+	 * them first. Works like tokenize(CharSequence, int, int, TokenSink)
+	 * on a Utf8Text view of the bytes, so each token is a span of bytes
+	 * that is only decoded if it is turned into a String. The tokens are
+	 * the same ones the decoded text gives.
+	 *
+	 * @param utf8   the bytes holding the HTML line
+	 * @param offset the index of the first byte of the line
+	 * @param length the number of bytes in the line
+	 * @param tokens receives the token spans in order
+	 */
+	public void tokenize(byte[] utf8, int offset, int length, TokenSink tokens) {
+		tokenize(new Utf8Text(utf8), offset, offset + length, tokens);
+	}
+
+	/**
+	 * Break one line of HTML into tokens. The tokens are the same ones
+	 * tokenizeHTMLString returns, but each is handed to the sink as a
+	 * (start, length, type) span into text instead of as a new String, so
+	 * scanning a line costs no allocation of its own.
+	 * Comment and preformat state carries over between calls just like
+	 * tokenizeHTMLString. If text is a Utf8Text, each non-ASCII character
+	 * is decoded to find out what kind it is, and the spans count bytes.
+	 *
+	 * @param text   the text holding the HTML line
+	 * @param start  the index of the first char of the line
+	 * @param end    the index one past the last char of the line
+	 * @param tokens receives the token spans in order
+	 */
+	public void tokenize(CharSequence text, int start, int end, TokenSink tokens) {
+		if (metrics == null) {
+			tokenizeLine(text, start, end, tokens);
+			return;
+		}
+		long startTime = System.nanoTime();
+		countingSink.tokens = tokens;
+		tokenizeLine(text, start, end, countingSink);
+		countingSink.tokens = null;
+		metrics.recordLine(countingSink.counts, end - start, commentChars, preformatChars,
+				System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Break one line of HTML into tokens, as tokenize.
+	 *
+	 * @param text   the text holding the HTML line
+	 * @param start  the index of the first char of the line
+	 * @param end    the index one past the last char of the line
+	 * @param tokens receives the token spans in order
+	 */
+	private void tokenizeLine(CharSequence text, int start, int end, TokenSink tokens) {
+		int tokenStart = -1;		// start of the token being built, -1 if none
+		TokenType tokenType = null;	// kind of the token being built
 		boolean insideTag = false;
 		boolean hyphenUsed = false;
 		boolean insideNumber = false;
-		boolean seenDecimalPoint = false; // Added variable
-	
-		int i = 0;
-	
+		boolean seenDecimalPoint = false;
+		boolean utf8 = text instanceof Utf8Text;
+
+		int i = start;
+		lineEndedInsideTag = false;
+		inEntityWord = false;
+		commentChars = 0;
+		preformatChars = 0;
+
 		if (state == TokenState.COMMENT) {
-			int endCommentIndex = str.indexOf("-->");
+			int endCommentIndex = indexOf(text, "-->", i, end);
 			if (endCommentIndex != -1) {
 				i = endCommentIndex + 3;
+				commentChars = i - start;
 				state = TokenState.NONE;
 			} else {
-				return new String[0]; // Entire line is inside comment
+				commentChars = end - start;
+				return; // Entire line is inside comment
 			}
 		}
-	
+
 		if (state == TokenState.PREFORMAT) {
-			if (equalsAtPosition(str.trim(), 0, "</pre>")) {
-				result[tokenIndex++] = "</pre>";
+			int firstChar = start;
+			while (firstChar < end && text.charAt(firstChar) <= ' ') {
+				firstChar++;
+			}
+			if (matchesAtPosition(text, firstChar, end, "</pre>")) {
+				tokens.addToken(text, firstChar, 6, TokenType.CLOSE_TAG);
 				state = TokenState.NONE;
 			} else {
-				result[tokenIndex++] = str;
+				tokens.addToken(text, start, end - start, TokenType.PREFORMAT);
+				preformatChars = end - start;
 			}
-			String[] finalTokens = new String[tokenIndex];
-			for (int j = 0; j < tokenIndex; j++) {
-				finalTokens[j] = result[j];
-			}
-			return finalTokens;
+			return;
 		}
-	
-		while (i < str.length()) {
-			if (matchesAtPosition(str, i, "<!--")) {
-				if (currentToken.length() > 0) {
-					result[tokenIndex++] = currentToken;
-					currentToken = "";
+
+		while (i < end) {
+			int preLength = preTagLength(text, i, end);
+			if (matchesAtPosition(text, i, end, "<!--")) {
+				if (tokenStart != -1) {
+					emit(text, tokenStart, i, tokenType, tokens);
+					tokenStart = -1;
 				}
-				int endCommentIndex = str.indexOf("-->", i + 4);
+				int endCommentIndex = indexOf(text, "-->", i + 4, end);
 				if (endCommentIndex != -1) {
+					commentChars += endCommentIndex + 3 - i;
 					i = endCommentIndex + 3;
 				} else {
+					commentChars += end - i;
 					state = TokenState.COMMENT;
-					i = str.length();
+					i = end;
 				}
-			} else if (matchesAtPosition(str, i, "<pre>")) {
-				if (currentToken.length() > 0) {
-					result[tokenIndex++] = currentToken;
-					currentToken = "";
+			} else if (preLength > 0) {
+				if (tokenStart != -1) {
+					emit(text, tokenStart, i, tokenType, tokens);
+					tokenStart = -1;
 				}
-				result[tokenIndex++] = "<pre>";
+				tokens.addToken(text, i, preLength, TokenType.OPEN_TAG);
+				preformatChars = end - i - preLength;
 				state = TokenState.PREFORMAT;
-				i += 5;
-				i = str.length(); // Exit loop, rest of line is preformatted
-			} else if (matchesAtPosition(str, i, "</pre>")) {
-				if (currentToken.length() > 0) {
-					result[tokenIndex++] = currentToken;
-					currentToken = "";
+				i = end; // Exit loop, rest of line is preformatted
+			} else if (matchesAtPosition(text, i, end, "</pre>")) {
+				if (tokenStart != -1) {
+					emit(text, tokenStart, i, tokenType, tokens);
+					tokenStart = -1;
 				}
-				result[tokenIndex++] = "</pre>";
+				tokens.addToken(text, i, 6, TokenType.CLOSE_TAG);
 				state = TokenState.NONE;
 				i += 6;
 			} else {
-				char currentChar = str.charAt(i);
-	
+				// a non-ASCII character in UTF-8 is classified as the char it decodes to
+				char currentChar = text.charAt(i);
+				int width = 1;
+				if (utf8 && currentChar >= 0x80) {
+					width = ((Utf8Text) text).byteCount(i, end);
+					currentChar = ((Utf8Text) text).charAtByte(i, end);
+				}
+
 				if (insideTag) {
-					currentToken += currentChar;
+					if (tokenStart == -1) {
+						tokenStart = i;
+						tokenType = TokenType.OPEN_TAG;
+					} else if (currentChar == '/' && i == tokenStart + 1 && text.charAt(tokenStart) == '<') {
+						tokenType = TokenType.CLOSE_TAG;
+					}
 					if (currentChar == '>') {
-						result[tokenIndex++] = currentToken;
-						currentToken = "";
+						tokens.addToken(text, tokenStart, i + 1 - tokenStart, tokenType);
+						tokenStart = -1;
 						insideTag = false;
 					}
 					i++;
 				} else if (insideNumber) {
-					if (Character.isDigit(currentChar) ||
+					if (HTMLCharClass.isDigit(currentChar) ||
 							(currentChar == '.' && !seenDecimalPoint) ||
 							currentChar == 'e' || currentChar == 'E' ||
-							(currentChar == '-' && i > 0 && (str.charAt(i - 1) == 'e' || str.charAt(i - 1) == 'E'))) {
+							(currentChar == '-' && i > start
+									&& (text.charAt(i - 1) == 'e' || text.charAt(i - 1) == 'E'))) {
 						if (currentChar == '.') {
 							seenDecimalPoint = true;
 						}
-						currentToken += currentChar;
-						i++;
+						if (tokenStart == -1) {
+							tokenStart = i;
+							tokenType = TokenType.NUMBER;
+						}
+						i += width;
 					} else {
-						result[tokenIndex++] = currentToken;
-						currentToken = "";
+						// A number cut short by a comment still ends with an empty token
+						if (tokenStart == -1) {
+							tokens.addToken(text, i, 0, TokenType.NUMBER);
+						} else {
+							emit(text, tokenStart, i, tokenType, tokens);
+							tokenStart = -1;
+						}
 						insideNumber = false;
 						// Do not increment i to reprocess the current character
 					}
 				} else {
-					if (currentChar == '<') {
-						if (currentToken.length() > 0) {
-							result[tokenIndex++] = currentToken;
-							currentToken = "";
+					int entityLength = 0;
+					if (decodeEntities && currentChar == '&') {
+						entityLength = HTMLEntities.length(text, i, end);
+					}
+					if (entityLength > 0) {
+						int codePoint = HTMLEntities.value(text, i, entityLength);
+						if (Character.isLetter(codePoint)) {
+							// a letter joins the word around it
+							if (inEntityWord) {
+								appendRaw(text, rawRunStart, i);
+							} else {
+								entityWord.setLength(0);
+								if (tokenStart != -1) {
+									appendRaw(text, tokenStart, i);
+								} else {
+									tokenStart = i;
+									tokenType = TokenType.WORD;
+								}
+								inEntityWord = true;
+							}
+							entityWord.appendCodePoint(codePoint);
+							rawRunStart = i + entityLength;
+						} else {
+							if (tokenStart != -1) {
+								emit(text, tokenStart, i, tokenType, tokens);
+								tokenStart = -1;
+								hyphenUsed = false;
+							}
+							// anything else but a space is a token of its own
+							if (!Character.isWhitespace(codePoint) && !Character.isSpaceChar(codePoint)) {
+								String decoded = HTMLEntities.toString(codePoint);
+								TokenType decodedType = TokenType.WORD;
+								if (codePoint < 128 && HTMLCharClass.isPunctuation((char) codePoint)) {
+									decodedType = TokenType.PUNCTUATION;
+								} else if (Character.isDigit(codePoint)) {
+									decodedType = TokenType.NUMBER;
+								}
+								tokens.addToken(decoded, 0, decoded.length(), decodedType);
+							}
+						}
+						i += entityLength;
+					} else if (currentChar == '<') {
+						if (tokenStart != -1) {
+							emit(text, tokenStart, i, tokenType, tokens);
 							hyphenUsed = false;
 						}
 						insideTag = true;
-						currentToken += currentChar;
+						tokenStart = i;
+						tokenType = TokenType.OPEN_TAG;
 						i++;
-					} else if (isAlphabetic(currentChar)) {
-						currentToken += currentChar;
-						i++;
-					} else if (currentChar == '-' && currentToken.length() > 0
-							&& isAlphabetic(currentToken.charAt(currentToken.length() - 1)) &&
-							i + 1 < str.length() && isAlphabetic(str.charAt(i + 1)) && !hyphenUsed) {
-						currentToken += currentChar;
+					} else if (HTMLCharClass.isLetter(currentChar)) {
+						if (tokenStart == -1) {
+							tokenStart = i;
+							tokenType = TokenType.WORD;
+						}
+						i += width;
+					} else if (currentChar == '-' && tokenStart != -1
+							&& (endsLetter(text, i, utf8) || (inEntityWord && i == rawRunStart)) &&
+							i + 1 < end && HTMLCharClass.isLetter(charAt(text, i + 1, end, utf8)) && !hyphenUsed) {
 						hyphenUsed = true;
 						i++;
-					} else if (Character.isDigit(currentChar) ||
-							(currentChar == '-' && i + 1 < str.length() && Character.isDigit(str.charAt(i + 1)))) {
-						if (currentToken.length() > 0) {
-							result[tokenIndex++] = currentToken;
-							currentToken = "";
+					} else if (HTMLCharClass.isDigit(currentChar) ||
+							(currentChar == '-' && i + 1 < end && HTMLCharClass.isDigit(charAt(text, i + 1, end, utf8)))) {
+						if (tokenStart != -1) {
+							emit(text, tokenStart, i, tokenType, tokens);
 							hyphenUsed = false;
 						}
 						insideNumber = true;
 						seenDecimalPoint = false; // Reset when starting a new number
-						currentToken += currentChar;
-						i++;
-					} else if (isPunctuation(currentChar)) {
-						if (currentToken.length() > 0) {
-							result[tokenIndex++] = currentToken;
-							currentToken = "";
+						tokenStart = i;
+						tokenType = TokenType.NUMBER;
+						i += width;
+					} else if (HTMLCharClass.isPunctuation(currentChar)) {
+						if (tokenStart != -1) {
+							emit(text, tokenStart, i, tokenType, tokens);
+							tokenStart = -1;
 							hyphenUsed = false;
 						}
-						result[tokenIndex++] = String.valueOf(currentChar);
+						tokens.addToken(text, i, 1, TokenType.PUNCTUATION);
 						i++;
 					} else {
-						if (currentToken.length() > 0) {
-							result[tokenIndex++] = currentToken;
-							currentToken = "";
+						if (tokenStart != -1) {
+							emit(text, tokenStart, i, tokenType, tokens);
+							tokenStart = -1;
 							hyphenUsed = false;
 						}
-						i++;
+						i += width;
 					}
 				}
 			}
 		}
-	
-		if (currentToken.length() > 0) {
-			result[tokenIndex++] = currentToken;
+
+		if (tokenStart != -1) {
+			emit(text, tokenStart, end, tokenType, tokens);
 		}
-	
-		String[] finalTokens = new String[tokenIndex];
-		for (int j = 0; j < tokenIndex; j++) {
-			finalTokens[j] = result[j];
+		lineEndedInsideTag = insideTag && tokenStart != -1;
+	}
+
+	/**
+	 * Turns on counting tokens, chars and time per line, or turns it off.
+	 * The same metrics can be shared by several tokenizers.
+	 *
+	 * @param metrics where to add the counts, or null to stop counting
+	 */
+	public void setMetrics(TokenizerMetrics metrics) {
+		this.metrics = metrics;
+		if (metrics != null && countingSink == null) {
+			countingSink = new CountingSink();
 		}
-	
-		return finalTokens;
 	}
-	
+
 	/**
-	 * Helper method to check if the substring starting at the specified index
-	 * matches the given string.
+	 * Turns decoding of entities such as &amp;amp;, &amp;eacute; and
+	 * &amp;#39; on or off. When on, an entity for a letter becomes part of
+	 * the word around it, an entity for punctuation becomes a punctuation
+	 * token, an entity for a space separates tokens, and any other entity
+	 * becomes a token of its own. When off (the default) '&amp;' is just
+	 * punctuation.
 	 *
-	 * @param str     the string to check against
-	 * @param index   the starting index in the string
-	 * @param toMatch the string to match
-	 * @return true if the substring matches the given string, false otherwise
+	 * @param decodeEntities true to decode entities
 	 */
-	private boolean matchesAtPosition(String str, int index, String toMatch) {
-		int strLen = str.length();
-		int matchLen = toMatch.length();
-		if (index + matchLen > strLen) {
-			return false;
+	public void setDecodeEntities(boolean decodeEntities) {
+		this.decodeEntities = decodeEntities;
+	}
+
+	/**
+	 * @return the block the tokenizer is inside at the start of the next line
+	 */
+	TokenState getState() {
+		return state;
+	}
+
+	/**
+	 * @return true if the last line tokenized ended part way through a tag,
+	 *         so its last token is missing the closing '>'
+	 */
+	boolean lineEndedInsideTag() {
+		return lineEndedInsideTag;
+	}
+
+	/**
+	 * Finds the block state a line leaves the tokenizer in, without
+	 * tokenizing it. Only the comment and pre markers are looked at, in the
+	 * same order tokenize looks for them, so the result is always the
+	 * state tokenize would end the line in. This is much faster than
+	 * tokenizing, which lets a document be split into parts that are
+	 * tokenized separately.
+	 *
+	 * @param text  the text holding the HTML line
+	 * @param start the index of the first char of the line
+	 * @param end   the index one past the last char of the line
+	 * @param state the block the line starts inside
+	 * @return the block the next line starts inside
+	 */
+	static TokenState scanState(CharSequence text, int start, int end, TokenState state) {
+		int i = start;
+		if (state == TokenState.COMMENT) {
+			int endCommentIndex = indexOf(text, "-->", i, end);
+			if (endCommentIndex == -1) {
+				return TokenState.COMMENT;
+			}
+			i = endCommentIndex + 3;
+		} else if (state == TokenState.PREFORMAT) {
+			while (i < end && text.charAt(i) <= ' ') {
+				i++;
+			}
+			return matchesAtPosition(text, i, end, "</pre>") ? TokenState.NONE : TokenState.PREFORMAT;
 		}
-		for (int j = 0; j < matchLen; j++) {
-			if (str.charAt(index + j) != toMatch.charAt(j)) {
-				return false;
+
+		// every marker starts with '<'; a "</pre>" leaves the state NONE
+		while (i < end) {
+			if (text.charAt(i) != '<') {
+				i++;
+			} else if (matchesAtPosition(text, i, end, "<!--")) {
+				int endCommentIndex = indexOf(text, "-->", i + 4, end);
+				if (endCommentIndex == -1) {
+					return TokenState.COMMENT;
+				}
+				i = endCommentIndex + 3;
+			} else if (preTagLength(text, i, end) > 0) {
+				return TokenState.PREFORMAT;
+			} else {
+				i++;
 			}
 		}
-		return true;
+		return TokenState.NONE;
 	}
 
 	/**
-	 * Helper method to check if the trimmed string equals the specified string
-	 * starting at the given index.
+	 * Puts the tokenizer back into a block state saved earlier with getState.
 	 *
-	 * @param str     the string to check against
-	 * @param index   the starting index in the trimmed string
+	 * @param state the block the next line starts inside
+	 */
+	void setState(TokenState state) {
+		this.state = state;
+	}
+
+	/**
+	 * Hands a finished token to the sink. A word that had an entity
+	 * decoded into it is handed over as a new String; every other token
+	 * is a span of text.
+	 *
+	 * @param text       the text being tokenized
+	 * @param tokenStart the index of the first char of the token
+	 * @param tokenEnd   the index one past the last char of the token
+	 * @param type       the kind of token
+	 * @param tokens     receives the token
+	 */
+	private void emit(CharSequence text, int tokenStart, int tokenEnd, TokenType type, TokenSink tokens) {
+		if (inEntityWord) {
+			appendRaw(text, rawRunStart, tokenEnd);
+			String word = entityWord.toString();
+			tokens.addToken(word, 0, word.length(), type);
+			inEntityWord = false;
+		} else {
+			tokens.addToken(text, tokenStart, tokenEnd - tokenStart, type);
+		}
+	}
+
+	/**
+	 * Adds chars of the text to the word being built, decoding them first
+	 * if the text is UTF-8 bytes.
+	 *
+	 * @param text the text being tokenized
+	 * @param from the index of the first char to add
+	 * @param to   the index one past the last char to add
+	 */
+	private void appendRaw(CharSequence text, int from, int to) {
+		if (text instanceof Utf8Text) {
+			entityWord.append(text.subSequence(from, to).toString());
+		} else {
+			entityWord.append(text, from, to);
+		}
+	}
+
+	/**
+	 * Helper method to find the character at an index, decoding it first
+	 * if the text is UTF-8 bytes.
+	 *
+	 * @param text  the text being tokenized
+	 * @param index the index of the char, or of the first byte of the character
+	 * @param end   the index one past the last char that may be used
+	 * @param utf8  true if text is a Utf8Text
+	 * @return the character
+	 */
+	private static char charAt(CharSequence text, int index, int end, boolean utf8) {
+		char c = text.charAt(index);
+		return (utf8 && c >= 0x80) ? ((Utf8Text) text).charAtByte(index, end) : c;
+	}
+
+	/**
+	 * Helper method to check if the char before an index inside a word is
+	 * a letter. In UTF-8 a byte of a non-ASCII character can only be part
+	 * of a word if the character is a letter.
+	 *
+	 * @param text  the text being tokenized
+	 * @param index the index just after the char to check
+	 * @param utf8  true if text is a Utf8Text
+	 * @return true if the char before index is a letter, else false
+	 */
+	private static boolean endsLetter(CharSequence text, int index, boolean utf8) {
+		char c = text.charAt(index - 1);
+		return (utf8 && c >= 0x80) || HTMLCharClass.isLetter(c);
+	}
+
+	/**
+	 * Helper method to check if the text starting at the specified index
+	 * matches the given string without running past the end index.
+	 *
+	 * @param text    the text to check against
+	 * @param index   the starting index in the text
+	 * @param end     the index one past the last char that may be matched
 	 * @param toMatch the string to match
-	 * @return true if the trimmed substring equals the given string, false
-	 *         otherwise
+	 * @return true if the text matches the given string, false otherwise
 	 */
-	private boolean equalsAtPosition(String str, int index, String toMatch) {
-		String trimmedStr = str.trim();
-		int strLen = trimmedStr.length();
+	private static boolean matchesAtPosition(CharSequence text, int index, int end, String toMatch) {
 		int matchLen = toMatch.length();
-		if (index + matchLen > strLen) {
+		if (index + matchLen > end) {
 			return false;
 		}
 		for (int j = 0; j < matchLen; j++) {
-			if (trimmedStr.charAt(index + j) != toMatch.charAt(j)) {
+			if (text.charAt(index + j) != toMatch.charAt(j)) {
 				return false;
 			}
 		}
@@ -227,29 +542,46 @@ public class HTMLUtilities {
 	}
 
 	/**
-	 * Helper method to determine if a character is alphabetic (A-Z or a-z).
+	 * Helper method to find the length of a "&lt;pre&gt;" tag, with or
+	 * without attributes, starting at the given index.
 	 *
-	 * @param c The character to check.
-	 * @return True if alphabetic, else false.
+	 * @param text  the text to check
+	 * @param index the starting index in the text
+	 * @param end   the index one past the last char that may be matched
+	 * @return the number of chars up to and including the '&gt;', or 0 if
+	 *         there is no complete pre tag here
 	 */
-	private boolean isAlphabetic(char c) {
-		return Character.isLetter(c);
+	private static int preTagLength(CharSequence text, int index, int end) {
+		if (!matchesAtPosition(text, index, end, "<pre")) {
+			return 0;
+		}
+		int after = index + 4;
+		if (after < end && text.charAt(after) == '>') {
+			return 5;
+		}
+		if (after >= end || !Character.isWhitespace(charAt(text, after, end, text instanceof Utf8Text))) {
+			return 0;
+		}
+		int close = indexOf(text, ">", after, end);
+		return (close == -1) ? 0 : close + 1 - index;
 	}
 
 	/**
-	 * Helper method to determine if a character is a punctuation character.
+	 * Helper method to find the first occurrence of a string in part of a text.
 	 *
-	 * @param c The character to check.
-	 * @return True if punctuation, else false.
+	 * @param text    the text to search
+	 * @param toFind  the string to find
+	 * @param from    the index to start searching at
+	 * @param end     the index one past the last char that may be matched
+	 * @return the index of the first match, or -1 if there is none
 	 */
-	private boolean isPunctuation(char c) {
-		char[] punctuation = { '.', ',', ';', ':', '(', ')', '?', '!', '=', '&', '~', '+', '-' };
-		for (char p : punctuation) {
-			if (c == p) {
-				return true;
+	private static int indexOf(CharSequence text, String toFind, int from, int end) {
+		for (int j = from; j + toFind.length() <= end; j++) {
+			if (matchesAtPosition(text, j, end, toFind)) {
+				return j;
 			}
 		}
-		return false;
+		return -1;
 	}
 
 	/**
@@ -269,4 +601,19 @@ public class HTMLUtilities {
 		}
 		System.out.println();
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Counts the tokens of each kind on their way to another sink.
+	 */
+	private static class CountingSink implements TokenSink {
+
+		private final int[] counts = new int[TokenType.values().length];	// [TokenType ordinal]
+		private TokenSink tokens;											// where the tokens go
+
+		@Override
+		public void addToken(CharSequence source, int start, int length, TokenType type) {
+			counts[type.ordinal()]++;
+			tokens.addToken(source, start, length, type);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds in the style of HdrHistogram:
+ * values below 64 get a bucket each, and every power of two above that
+ * is split into 32 equal buckets, so any value is known to within about
+ * 3% while the whole range of a long fits in under 2000 buckets.
+ * Recording is one atomic increment and never allocates, so several
+ * threads can record into one histogram while another reads it.
+ *
+ * @author Aditya Dendukuri
+ * @since January 17 2025
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;			// 32 per power of two
+	private static final int EXACT_LIMIT = 2 * SUB_BUCKETS;					// values below 64 are exact
+	private static final int FIRST_EXPONENT = SUB_BUCKET_BITS + 1;			// 64 = 2^6
+	private static final int BUCKETS = EXACT_LIMIT + (63 - FIRST_EXPONENT) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts;
+	private final AtomicLong count;
+	private final AtomicLong sum;
+	private final AtomicLong max;
+
+	/**
+	 * Creates an empty histogram.
+	 */
+	public LatencyHistogram() {
+		counts = new AtomicLongArray(BUCKETS);
+		count = new AtomicLong();
+		sum = new AtomicLong();
+		max = new AtomicLong();
+	}
+
+	/**
+	 * Adds one value to the histogram.
+	 *
+	 * @param nanos the latency, negative values count as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		counts.incrementAndGet(bucket(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		max.accumulateAndGet(value, Math::max);
+	}
+
+	/** @return the number of values recorded */
+	public long getCount() {
+		return count.get();
+	}
+
+	/** @return the largest value recorded, 0 if none */
+	public long getMax() {
+		return max.get();
+	}
+
+	/** @return the mean of the values recorded, 0 if none */
+	public double getMean() {
+		long n = count.get();
+		return (n == 0) ? 0 : (double) sum.get() / n;
+	}
+
+	/**
+	 * Finds the value that the given percentage of values are at or below.
+	 *
+	 * @param percentile from 0 to 100
+	 * @return the lowest value of the bucket holding that value, 0 if
+	 *         nothing has been recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long n = 0;
+		long[] snapshot = new long[BUCKETS];
+		for (int b = 0; b < BUCKETS; b++) {
+			snapshot[b] = counts.get(b);
+			n += snapshot[b];
+		}
+		if (n == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * n));
+		long seen = 0;
+		for (int b = 0; b < BUCKETS; b++) {
+			seen += snapshot[b];
+			if (seen >= rank) {
+				return lowestValue(b);
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * @return a copy of this histogram as it is now
+	 */
+	public LatencyHistogram copy() {
+		LatencyHistogram copy = new LatencyHistogram();
+		for (int b = 0; b < BUCKETS; b++) {
+			copy.counts.set(b, counts.get(b));
+		}
+		copy.count.set(count.get());
+		copy.sum.set(sum.get());
+		copy.max.set(max.get());
+		return copy;
+	}
+
+	/**
+	 * Forgets every value recorded.
+	 */
+	public void reset() {
+		for (int b = 0; b < BUCKETS; b++) {
+			counts.set(b, 0);
+		}
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+
+	/**
+	 * @param value a value of at least 0
+	 * @return the bucket it is counted in
+	 */
+	private static int bucket(long value) {
+		if (value < EXACT_LIMIT) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+		return EXACT_LIMIT + (exponent - FIRST_EXPONENT) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * @param bucket a bucket
+	 * @return the lowest value counted in it
+	 */
+	private static long lowestValue(int bucket) {
+		if (bucket < EXACT_LIMIT) {
+			return bucket;
+		}
+		int exponent = (bucket - EXACT_LIMIT) / SUB_BUCKETS + FIRST_EXPONENT;
+		long subBucket = (bucket - EXACT_LIMIT) % SUB_BUCKETS;
+		return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+	}
+}
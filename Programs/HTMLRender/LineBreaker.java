@@ -0,0 +1,195 @@
+import java.util.HashMap;
+
+/**
+ * Decides where rendered text wraps. Token widths are measured per style,
+ * since bold and header fonts are wider than the default font, in integer
+ * units where a full line is LINE_WIDTH wide. Measurements are cached per
+ * (token, style) so repeated words are only measured once.
+ *
+ * Lines can be filled greedily, one token at a time as they arrive, or
+ * a whole paragraph can be broken at once to keep the lines as evenly
+ * filled as possible (the approach of Knuth and Plass: minimize the sum of
+ * the squared space left at the end of every line but the last).
+ *
+ * @author Aditya Dendukuri
+ * @since January 8 2025
+ */
+public class LineBreaker {
+
+	/** How lines are filled. */
+	public enum Mode {
+		GREEDY, OPTIMAL
+	};
+
+	// The old renderer wrapped after 80 chars, or 40 + (level - 1) * 10 chars
+	// for headers. A line is 25200 units wide, which every one of those
+	// limits divides, so each style gets a whole number of units per char.
+	public static final int LINE_WIDTH = 25200;
+	private static final int[] HEADING_CHARS_PER_LINE = { 40, 50, 60, 70, 80, 90 };
+	private static final int DEFAULT_CHARS_PER_LINE = 80;
+
+	// width of a char in a proportional font, in percent of an average char
+	private static final String NARROW_CHARS = "iljtfrI.,;:'!|()[]\" ";
+	private static final String WIDE_CHARS = "mwMW@%";
+	private static final int NARROW = 50;
+	private static final int WIDE = 150;
+	private static final int CAPITAL = 120;
+	private static final int BOLD_PERCENT = 110;	// bold is this much wider
+
+	private static final int CATEGORIES = 9;		// default, bold, italic, h1 to h6
+	private static final int MAX_CACHED = 4096;		// cached widths per category
+
+	private final Mode mode;
+	private final boolean proportional;
+	private final int[][] charWidths;				// [category][ASCII char] in units
+	private final int[] otherCharWidths;			// [category] for non-ASCII chars
+	private final HashMap<String, Integer>[] cache;	// [category] token -> width
+
+	/**
+	 * Creates a line breaker.
+	 *
+	 * @param mode        how lines are filled
+	 * @param proportional true to measure as a proportional font, false to
+	 *                     give every char of a style the same width
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public LineBreaker(Mode mode, boolean proportional) {
+		this.mode = mode;
+		this.proportional = proportional;
+		charWidths = new int[CATEGORIES][128];
+		otherCharWidths = new int[CATEGORIES];
+		cache = new HashMap[CATEGORIES];
+		for (int category = 0; category < CATEGORIES; category++) {
+			int unitsPerChar = LINE_WIDTH / DEFAULT_CHARS_PER_LINE;
+			if (category >= 3) {
+				unitsPerChar = LINE_WIDTH / HEADING_CHARS_PER_LINE[category - 3];
+			}
+			int stylePercent = (category == 1 && proportional) ? BOLD_PERCENT : 100;
+			for (char c = 0; c < 128; c++) {
+				int charPercent = proportional ? charPercent(c) : 100;
+				charWidths[category][c] = unitsPerChar * charPercent / 100 * stylePercent / 100;
+			}
+			otherCharWidths[category] = unitsPerChar * stylePercent / 100;
+			cache[category] = new HashMap<>();
+		}
+	}
+
+	/** @return how lines are filled */
+	public Mode getMode() {
+		return mode;
+	}
+
+	/** @return true if widths are measured as a proportional font */
+	public boolean isProportional() {
+		return proportional;
+	}
+
+	/**
+	 * Measures a token, using the cached width if it has been measured
+	 * in this style before.
+	 *
+	 * @param token the text to measure
+	 * @param style the StyleStack style bits it is printed in
+	 * @return the width of the token in units
+	 */
+	public int measure(String token, int style) {
+		int category = category(style);
+		HashMap<String, Integer> widths = cache[category];
+		Integer cached = widths.get(token);
+		if (cached != null) {
+			return cached;
+		}
+		int width = 0;
+		for (int j = 0; j < token.length(); j++) {
+			char c = token.charAt(j);
+			width += (c < 128) ? charWidths[category][c] : otherCharWidths[category];
+		}
+		if (widths.size() >= MAX_CACHED) {
+			widths.clear();
+		}
+		widths.put(token, width);
+		return width;
+	}
+
+	/**
+	 * @param style the StyleStack style bits
+	 * @return the width of a space between tokens in that style
+	 */
+	public int spaceWidth(int style) {
+		return charWidths[category(style)][' '];
+	}
+
+	/**
+	 * Breaks a paragraph into lines so the lines are as evenly filled as
+	 * possible. A token wider than a line gets a line of its own.
+	 *
+	 * @param widths      the width of each token
+	 * @param spaceWidths the width of the space after each token, 0 for none
+	 * @param count       the number of tokens in the paragraph
+	 * @return the index of the first token of each line, in order
+	 */
+	public int[] breakParagraph(int[] widths, int[] spaceWidths, int count) {
+		long[] cost = new long[count + 1];		// best cost of tokens [0, j)
+		int[] lineStart = new int[count + 1];	// start of the last line in that best layout
+		for (int j = 1; j <= count; j++) {
+			cost[j] = Long.MAX_VALUE;
+			int lineLength = widths[j - 1];
+			for (int i = j - 1; i >= 0; i--) {
+				if (i < j - 1) {
+					lineLength += widths[i] + spaceWidths[i];
+				}
+				if (lineLength > LINE_WIDTH && i < j - 1) {
+					break;
+				}
+				long slack = Math.max(LINE_WIDTH - lineLength, 0);
+				long lineCost = (j == count) ? 0 : slack * slack;
+				if (cost[i] + lineCost < cost[j]) {
+					cost[j] = cost[i] + lineCost;
+					lineStart[j] = i;
+				}
+			}
+		}
+
+		int lines = 0;
+		for (int j = count; j > 0; j = lineStart[j]) {
+			lines++;
+		}
+		int[] starts = new int[lines];
+		for (int j = count; j > 0; j = lineStart[j]) {
+			starts[--lines] = lineStart[j];
+		}
+		return starts;
+	}
+
+	/**
+	 * @param style the StyleStack style bits
+	 * @return the measuring category: 0 default, 1 bold, 2 italic, 3-8 h1-h6
+	 */
+	private int category(int style) {
+		int level = StyleStack.headingLevel(style);
+		if (level > 0) {
+			return 2 + level;
+		}
+		if ((style & StyleStack.BOLD) != 0) {
+			return 1;
+		}
+		return ((style & StyleStack.ITALIC) != 0) ? 2 : 0;
+	}
+
+	/**
+	 * @param c an ASCII char
+	 * @return its width in a proportional font, in percent of an average char
+	 */
+	private int charPercent(char c) {
+		if (NARROW_CHARS.indexOf(c) >= 0) {
+			return NARROW;
+		}
+		if (WIDE_CHARS.indexOf(c) >= 0) {
+			return WIDE;
+		}
+		if (c >= 'A' && c <= 'Z') {
+			return CAPITAL;
+		}
+		return 100;
+	}
+}
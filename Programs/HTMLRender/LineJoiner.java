@@ -0,0 +1,114 @@
+/**
+ * Tokenizes a document that arrives one line at a time, joining a line
+ * that ends part way through a tag with the lines after it so the tag
+ * comes out as one token, the same as HTMLTokenStream does. A line that
+ * ends inside a tag is held back; each following line is added to it and
+ * the joined text is tokenized again, until the tag closes, the joined
+ * text reaches MAX_JOINED_CHARS, or the document ends.
+ *
+ *		LineJoiner joiner = new LineJoiner(util);
+ *		while (input.nextLine()) {
+ *			if (joiner.tokenizeLine(input.getLine(), tokens) > 0) {
+ *				... use tokens ...
+ *			}
+ *		}
+ *		if (joiner.finish(tokens) > 0) {
+ *			... use tokens ...
+ *		}
+ *
+ * @author Aditya Dendukuri
+ * @since January 6 2025
+ */
+public class LineJoiner {
+
+	static final int MAX_JOINED_CHARS = 65536;		// longest tag joined across lines
+
+	private final HTMLUtilities utilities;
+	private final StringBuilder held;				// lines held back, joined by '\n'
+	private int heldLines;							// number of lines in held
+	private HTMLUtilities.TokenState heldState;		// tokenizer state at the start of held
+
+	/**
+	 * @param utilities the tokenizer, whose comment and preformat state
+	 *                  carries on from line to line
+	 */
+	public LineJoiner(HTMLUtilities utilities) {
+		this.utilities = utilities;
+		held = new StringBuilder();
+		heldLines = 0;
+	}
+
+	/**
+	 * Tokenizes the next line of the document. The line is only read
+	 * during the call, so it may be a reused buffer.
+	 *
+	 * @param line   the line, without its line terminator
+	 * @param tokens cleared, then given the tokens if any lines are done
+	 * @return the number of lines the tokens are for: 0 while the line is
+	 *         held back inside a tag, otherwise 1 plus the lines held
+	 *         before it
+	 */
+	public int tokenizeLine(CharSequence line, TokenBuffer tokens) {
+		tokens.clear();
+		if (heldLines == 0) {
+			HTMLUtilities.TokenState state = utilities.getState();
+			utilities.tokenize(line, 0, line.length(), tokens);
+			if (!utilities.lineEndedInsideTag() || line.length() >= MAX_JOINED_CHARS) {
+				return 1;
+			}
+			tokens.clear();
+			utilities.setState(state);
+			heldState = state;
+			held.append(line);
+			heldLines = 1;
+			return 0;
+		}
+
+		held.append('\n').append(line);
+		heldLines++;
+		String text = held.toString();
+		utilities.setState(heldState);
+		utilities.tokenize(text, 0, text.length(), tokens);
+		if (utilities.lineEndedInsideTag() && text.length() < MAX_JOINED_CHARS) {
+			tokens.clear();
+			utilities.setState(heldState);
+			return 0;
+		}
+		return release();
+	}
+
+	/**
+	 * Tokenizes the lines still held back at the end of the document,
+	 * whose tag is never closed.
+	 *
+	 * @param tokens cleared, then given the tokens of the held lines
+	 * @return the number of lines the tokens are for, 0 if none were held
+	 */
+	public int finish(TokenBuffer tokens) {
+		tokens.clear();
+		if (heldLines == 0) {
+			return 0;
+		}
+		String text = held.toString();
+		utilities.setState(heldState);
+		utilities.tokenize(text, 0, text.length(), tokens);
+		return release();
+	}
+
+	/** @return true if lines are held back waiting for a tag to close */
+	public boolean isHolding() {
+		return heldLines > 0;
+	}
+
+	/**
+	 * Forgets the lines held back.
+	 *
+	 * @return the number of lines that were held
+	 */
+	private int release() {
+		int lines = heldLines;
+		held.setLength(0);
+		heldLines = 0;
+		return lines;
+	}
+}
@@ -0,0 +1,174 @@
+import java.util.List;
+
+/**
+ * Keeps the tokens of every line of a document, together with the
+ * tokenizer state each line starts in, so that after the document is
+ * edited only the changed lines need to be tokenized again.
+ *
+ * On update, lines at the start and end of the document that are
+ * unchanged are found by comparing hashes (then the text, to be sure).
+ * Tokenizing restarts at the first changed line and continues until it
+ * reaches an unchanged line that starts in the same comment/pre state as
+ * before; from there on the old tokens are still correct and are reused.
+ * A tag split over lines is joined into one token by a LineJoiner. Its
+ * tokens belong to the line it starts on, and the lines it continues onto
+ * have no tokens and no start state of their own.
+ *
+ * @author Aditya Dendukuri
+ * @since December 27 2024
+ */
+public class LineTokenCache {
+
+	private final HTMLUtilities utilities;
+	private final LineJoiner joiner;
+	private String[] lines;								// text of each line
+	private HTMLUtilities.TokenState[] startStates;		// state at the start of each line, null
+														// for a line a tag continues onto
+	private TokenBuffer[] lineTokens;					// tokens of each line
+	private int lineCount;
+	private HTMLUtilities.TokenState endState;			// state after the last line
+
+	/**
+	 * Creates an empty cache that leaves entities undecoded.
+	 */
+	public LineTokenCache() {
+		this(false);
+	}
+
+	/**
+	 * Creates an empty cache.
+	 *
+	 * @param decodeEntities true to decode entities while tokenizing, as
+	 *                       HTMLUtilities.setDecodeEntities does
+	 */
+	public LineTokenCache(boolean decodeEntities) {
+		utilities = new HTMLUtilities();
+		utilities.setDecodeEntities(decodeEntities);
+		joiner = new LineJoiner(utilities);
+		lines = new String[0];
+		startStates = new HTMLUtilities.TokenState[0];
+		lineTokens = new TokenBuffer[0];
+		lineCount = 0;
+		endState = utilities.getState();
+	}
+
+	/**
+	 * Brings the cache up to date with a new version of the document.
+	 *
+	 * @param newLines every line of the document
+	 * @return the number of lines that had to be tokenized
+	 */
+	public int update(List<String> newLines) {
+		int newCount = newLines.size();
+
+		// unchanged lines at the start and end of the document
+		int prefix = 0;
+		while (prefix < lineCount && prefix < newCount && sameLine(lines[prefix], newLines.get(prefix))) {
+			prefix++;
+		}
+		// the last unchanged tag may have been open at the end of a changed
+		// line, or at the end of the document, so start again at the
+		// beginning of the line it is on
+		if (prefix > 0) {
+			prefix--;
+			while (startStates[prefix] == null) {
+				prefix--;
+			}
+		}
+		int suffix = 0;
+		while (suffix < lineCount - prefix && suffix < newCount - prefix
+				&& sameLine(lines[lineCount - 1 - suffix], newLines.get(newCount - 1 - suffix))) {
+			suffix++;
+		}
+
+		String[] newText = new String[newCount];
+		HTMLUtilities.TokenState[] newStates = new HTMLUtilities.TokenState[newCount];
+		TokenBuffer[] newTokens = new TokenBuffer[newCount];
+		System.arraycopy(lines, 0, newText, 0, prefix);
+		System.arraycopy(startStates, 0, newStates, 0, prefix);
+		System.arraycopy(lineTokens, 0, newTokens, 0, prefix);
+
+		utilities.setState(prefix < lineCount ? startStates[prefix] : endState);
+		int tokenized = 0;
+		int line = prefix;
+		boolean converged = false;
+		int groupStart = line;		// first line of the tokens the joiner is building
+		while (line < newCount && !converged) {
+			int oldLine = line - (newCount - lineCount);
+			if (!joiner.isHolding() && line >= newCount - suffix && utilities.getState() == startStates[oldLine]) {
+				// same text starting in the same state: the rest is unchanged
+				int rest = newCount - line;
+				System.arraycopy(lines, oldLine, newText, line, rest);
+				System.arraycopy(startStates, oldLine, newStates, line, rest);
+				System.arraycopy(lineTokens, oldLine, newTokens, line, rest);
+				converged = true;
+			} else {
+				String text = newLines.get(line);
+				if (!joiner.isHolding()) {
+					groupStart = line;
+				}
+				newText[line] = text;
+				newStates[line] = (line == groupStart) ? utilities.getState() : null;
+				newTokens[line] = new TokenBuffer(1);
+				TokenBuffer tokens = new TokenBuffer(8);
+				if (joiner.tokenizeLine(text, tokens) > 0) {
+					newTokens[groupStart] = tokens;
+				}
+				tokenized++;
+				line++;
+			}
+		}
+		if (!converged) {
+			TokenBuffer tokens = new TokenBuffer(8);
+			if (joiner.finish(tokens) > 0) {
+				newTokens[groupStart] = tokens;
+			}
+			endState = utilities.getState();
+		}
+
+		lines = newText;
+		startStates = newStates;
+		lineTokens = newTokens;
+		lineCount = newCount;
+		return tokenized;
+	}
+
+	/** @return the number of lines in the document */
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * @param line the line number, starting at 0
+	 * @return the tokens of that line, as spans into the line's text; a
+	 *         tag that goes on to the lines after it is one span into
+	 *         the joined text of those lines
+	 */
+	public TokenBuffer getLineTokens(int line) {
+		if (line < 0 || line >= lineCount) {
+			throw new IndexOutOfBoundsException("line " + line + " of " + lineCount);
+		}
+		return lineTokens[line];
+	}
+
+	/**
+	 * Forgets every line.
+	 */
+	public void clear() {
+		lines = new String[0];
+		startStates = new HTMLUtilities.TokenState[0];
+		lineTokens = new TokenBuffer[0];
+		lineCount = 0;
+		utilities.setState(HTMLUtilities.TokenState.NONE);
+		endState = HTMLUtilities.TokenState.NONE;
+	}
+
+	/**
+	 * @param oldLine a line from the cached version
+	 * @param newLine a line from the new version
+	 * @return true if the lines have the same text
+	 */
+	private boolean sameLine(String oldLine, String newLine) {
+		return oldLine.hashCode() == newLine.hashCode() && oldLine.equals(newLine);
+	}
+}
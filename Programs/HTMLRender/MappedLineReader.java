@@ -0,0 +1,209 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a UTF-8 text file line by line through a memory-mapped view of the
+ * file instead of a Scanner. Each line is decoded into one reused char
+ * buffer, so reading a line allocates nothing; lines that are pure ASCII
+ * are copied byte for byte without going through a decoder. A line is
+ * only decoded when getLine is called, so a caller that tokenizes the
+ * undecoded bytes from getLineBytes never decodes at all. The file is
+ * mapped a window at a time, so files larger than 2GB can be read.
+ *
+ *		MappedLineReader input = new MappedLineReader(fileName);
+ *		while (input.nextLine()) {
+ *			util.tokenize(input.getLine(), 0, input.getLine().length(), sink);
+ *		}
+ *
+ * @author Aditya Dendukuri
+ * @since December 30 2024
+ */
+public class MappedLineReader implements Closeable {
+
+	private static final long WINDOW_SIZE = 1L << 26;	// 64MB mapped at a time
+
+	private final FileChannel channel;
+	private final long fileSize;
+	private final CharsetDecoder decoder;
+	private MappedByteBuffer window;	// the mapped part of the file
+	private long windowStart;			// file position of the start of window
+	private long windowSize;			// bytes mapped per window, grows for huge lines
+
+	private int lineStart;				// window index of the current line
+	private int lineEnd;				// window index one past its last byte
+	private boolean decoded;			// true once line holds the current line
+
+	private char[] chars;				// the current line, decoded
+	private CharBuffer line;			// chars seen as a CharSequence
+	private byte[] bytes;				// the current line's bytes, for getLineBytes
+
+	/**
+	 * Opens a file for reading.
+	 *
+	 * @param fileName the file to read
+	 * @throws IOException if the file cannot be opened or mapped
+	 */
+	public MappedLineReader(String fileName) throws IOException {
+		channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+		fileSize = channel.size();
+		decoder = StandardCharsets.UTF_8.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		windowSize = WINDOW_SIZE;
+		map(0);
+		chars = new char[256];
+		line = CharBuffer.wrap(chars);
+		line.limit(0);
+		bytes = new byte[256];
+		decoded = true;
+	}
+
+	/**
+	 * Moves to the next line of the file.
+	 *
+	 * @return true if there was another line, false at the end of the file
+	 * @throws IOException if the file cannot be mapped
+	 */
+	public boolean nextLine() throws IOException {
+		if (!window.hasRemaining() && windowStart + window.limit() >= fileSize) {
+			return false;
+		}
+		int start = window.position();
+		int end = findNewline(start);
+		while (end == -1 && windowStart + window.limit() < fileSize) {
+			// the line runs past the window, so map a new window starting at the line
+			long lineStart = windowStart + start;
+			if (window.limit() - start >= windowSize) {
+				if (windowSize >= Integer.MAX_VALUE) {
+					throw new IOException("Line at byte " + lineStart + " is longer than 2GB");
+				}
+				windowSize = Math.min(windowSize * 2, Integer.MAX_VALUE);
+			}
+			map(lineStart);
+			start = 0;
+			end = findNewline(0);
+		}
+		int next = (end == -1) ? window.limit() : end + 1;
+		if (end == -1) {
+			end = window.limit();
+		}
+		if (end > start && window.get(end - 1) == '\r') {
+			end--;
+		}
+		lineStart = start;
+		lineEnd = end;
+		decoded = false;
+		window.position(next);
+		return true;
+	}
+
+	/**
+	 * @return the current line without its line break; the same buffer is
+	 *         reused, so copy it with toString to keep it past nextLine
+	 */
+	public CharSequence getLine() {
+		if (!decoded) {
+			decode(lineStart, lineEnd);
+			decoded = true;
+		}
+		return line;
+	}
+
+	/**
+	 * Gets the current line as UTF-8 bytes, copied out of the file without
+	 * decoding them, for HTMLUtilities to tokenize as bytes.
+	 *
+	 * @return the current line without its line break, as a view of a
+	 *         byte array that is reused by the next line
+	 */
+	public Utf8Text getLineBytes() {
+		int length = lineEnd - lineStart;
+		if (bytes.length < length) {
+			bytes = new byte[Math.max(length, bytes.length * 2)];
+		}
+		for (int j = 0; j < length; j++) {
+			bytes[j] = window.get(lineStart + j);
+		}
+		return new Utf8Text(bytes, 0, length);
+	}
+
+	/**
+	 * Closes the file. Mapped windows are released by the garbage collector.
+	 *
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Maps the window of the file starting at a position.
+	 *
+	 * @param start the file position the window starts at
+	 * @throws IOException if the file cannot be mapped
+	 */
+	private void map(long start) throws IOException {
+		long size = Math.min(windowSize, fileSize - start);
+		window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+		windowStart = start;
+	}
+
+	/**
+	 * @param from the window index to start looking at
+	 * @return the window index of the next '\n', or -1 if the window ends first
+	 */
+	private int findNewline(int from) {
+		int limit = window.limit();
+		for (int j = from; j < limit; j++) {
+			if (window.get(j) == '\n') {
+				return j;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Decodes window[start, end) into chars and points line at it.
+	 * Malformed bytes become the replacement character.
+	 *
+	 * @param start the window index of the first byte of the line
+	 * @param end   the window index one past the last byte of the line
+	 */
+	private void decode(int start, int end) {
+		int length = end - start;
+		if (chars.length < length) {
+			chars = new char[Math.max(length, chars.length * 2)];
+			line = CharBuffer.wrap(chars);
+		}
+		boolean ascii = true;
+		for (int j = 0; j < length && ascii; j++) {
+			byte b = window.get(start + j);
+			if (b < 0) {
+				ascii = false;
+			} else {
+				chars[j] = (char) b;
+			}
+		}
+		line.clear();
+		if (!ascii) {
+			ByteBuffer bytes = window.duplicate();
+			bytes.position(start).limit(end);
+			decoder.reset();
+			decoder.decode(bytes, line, true);
+			decoder.flush(line);
+			length = line.position();
+			line.clear();
+		}
+		line.limit(length);
+	}
+}
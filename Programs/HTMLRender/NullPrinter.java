@@ -0,0 +1,18 @@
+/**
+ * A RenderPrinter that throws away everything printed to it, so that
+ * rendering can be timed without the cost of any output.
+ *
+ * @author Aditya Dendukuri
+ * @since January 10 2025
+ */
+public class NullPrinter implements RenderPrinter {
+	public void print(String text) {}
+	public void printBold(String text) {}
+	public void printItalic(String text) {}
+	public void printHeading(int level, String text) {}
+	public void printPreformattedText(String text) {}
+	public void println() {}
+	public void printBreak() {}
+	public void printHorizontalRule() {}
+	public void flush() {}
+}
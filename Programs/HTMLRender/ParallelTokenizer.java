@@ -0,0 +1,190 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Tokenizes one large HTML document on several threads. The document is
+ * split into lines at "\n", "\r" or "\r\n", like BufferedReader.readLine,
+ * and the lines are tokenized one at a time, so the tokens are exactly the
+ * ones tokenizeHTMLString gives line by line.
+ *
+ * Only the comment and pre state carries from one line to the next. A
+ * quick sequential pre-scan finds the state every line starts in (see
+ * HTMLUtilities.scanState), after which any run of lines can be tokenized
+ * on its own by a tokenizer started in the right state. Runs of lines are
+ * split in half on a ForkJoinPool until they are small, each is tokenized
+ * into its own TokenBuffer, and the buffers are handed to the sink in
+ * document order. With a single thread, or a document smaller than one
+ * chunk, the lines are simply tokenized in order straight into the sink.
+ *
+ * @author Aditya Dendukuri
+ * @since January 15 2025
+ */
+public class ParallelTokenizer {
+
+	private static final int DEFAULT_CHUNK_CHARS = 1 << 18;	// chars tokenized by one task
+
+	private final ForkJoinPool pool;
+	private int chunkChars;
+	private boolean decodeEntities;
+
+	/**
+	 * Creates a tokenizer that runs on the common ForkJoinPool.
+	 */
+	public ParallelTokenizer() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a tokenizer.
+	 *
+	 * @param pool the pool to run tasks on
+	 */
+	public ParallelTokenizer(ForkJoinPool pool) {
+		this.pool = pool;
+		chunkChars = DEFAULT_CHUNK_CHARS;
+	}
+
+	/**
+	 * Sets how much of the document one task tokenizes. Smaller chunks
+	 * spread the work more evenly across threads but cost more to stitch.
+	 *
+	 * @param chunkChars the number of chars below which a run of lines is
+	 *                   not split further
+	 */
+	public void setChunkChars(int chunkChars) {
+		if (chunkChars < 1) {
+			throw new IllegalArgumentException("chunkChars must be at least 1: " + chunkChars);
+		}
+		this.chunkChars = chunkChars;
+	}
+
+	/**
+	 * Turns decoding of entities on or off, as
+	 * HTMLUtilities.setDecodeEntities.
+	 *
+	 * @param decodeEntities true to decode entities
+	 */
+	public void setDecodeEntities(boolean decodeEntities) {
+		this.decodeEntities = decodeEntities;
+	}
+
+	/**
+	 * Tokenizes a whole document, handing every token to the sink in
+	 * order. Tokens are spans of the document, so it must not change
+	 * while this runs. The sink is only called from the calling thread.
+	 *
+	 * @param document the HTML document
+	 * @param sink     receives every token in order
+	 */
+	public void tokenize(CharSequence document, TokenSink sink) {
+		int length = document.length();
+		int lineCount = 0;
+		int[] lineStarts = new int[16];		// line i is [lineStarts[i], lineEnds[i])
+		int[] lineEnds = new int[16];
+		int start = 0;
+		for (int i = 0; i < length; i++) {
+			char c = document.charAt(i);
+			if (c == '\n' || c == '\r') {
+				if (lineCount + 1 >= lineStarts.length) {
+					lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+					lineEnds = Arrays.copyOf(lineEnds, lineEnds.length * 2);
+				}
+				lineStarts[lineCount] = start;
+				lineEnds[lineCount] = i;
+				lineCount++;
+				if (c == '\r' && i + 1 < length && document.charAt(i + 1) == '\n') {
+					i++;
+				}
+				start = i + 1;
+			}
+		}
+		if (lineCount + 2 > lineStarts.length) {
+			lineStarts = Arrays.copyOf(lineStarts, lineCount + 2);
+			lineEnds = Arrays.copyOf(lineEnds, lineCount + 2);
+		}
+		if (start < length) {
+			lineStarts[lineCount] = start;	// a last line with no line break after it
+			lineEnds[lineCount] = length;
+			lineCount++;
+		}
+		lineStarts[lineCount] = length;
+
+		if (pool.getParallelism() < 2 || length <= chunkChars) {
+			// nothing to gain from splitting
+			HTMLUtilities utilities = new HTMLUtilities();
+			utilities.setDecodeEntities(decodeEntities);
+			for (int line = 0; line < lineCount; line++) {
+				utilities.tokenize(document, lineStarts[line], lineEnds[line], sink);
+			}
+			return;
+		}
+
+		// the state each line starts in
+		HTMLUtilities.TokenState[] startStates = new HTMLUtilities.TokenState[lineCount];
+		HTMLUtilities.TokenState state = HTMLUtilities.TokenState.NONE;
+		for (int line = 0; line < lineCount; line++) {
+			startStates[line] = state;
+			state = HTMLUtilities.scanState(document, lineStarts[line], lineEnds[line], state);
+		}
+
+		List<TokenBuffer> chunks = pool.invoke(new ChunkTask(document, lineStarts, lineEnds, startStates, 0, lineCount));
+		for (TokenBuffer chunk : chunks) {
+			for (int t = 0; t < chunk.size(); t++) {
+				sink.addToken(chunk.getSource(t), chunk.getStart(t), chunk.getLength(t), chunk.getType(t));
+			}
+		}
+	}
+
+	/**
+	 * Tokenizes a run of lines, splitting it in half while it is large.
+	 */
+	private class ChunkTask extends RecursiveTask<List<TokenBuffer>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final CharSequence document;
+		private final int[] lineStarts;
+		private final int[] lineEnds;
+		private final HTMLUtilities.TokenState[] startStates;
+		private final int firstLine;
+		private final int endLine;		// one past the last line of the run
+
+		ChunkTask(CharSequence document, int[] lineStarts, int[] lineEnds,
+				HTMLUtilities.TokenState[] startStates, int firstLine, int endLine) {
+			this.document = document;
+			this.lineStarts = lineStarts;
+			this.lineEnds = lineEnds;
+			this.startStates = startStates;
+			this.firstLine = firstLine;
+			this.endLine = endLine;
+		}
+
+		@Override
+		protected List<TokenBuffer> compute() {
+			if (endLine - firstLine > 1 && lineStarts[endLine] - lineStarts[firstLine] > chunkChars) {
+				int middle = (firstLine + endLine) >>> 1;
+				ChunkTask second = new ChunkTask(document, lineStarts, lineEnds, startStates, middle, endLine);
+				second.fork();
+				List<TokenBuffer> chunks = new ChunkTask(document, lineStarts, lineEnds, startStates, firstLine, middle).compute();
+				chunks.addAll(second.join());
+				return chunks;
+			}
+
+			HTMLUtilities utilities = new HTMLUtilities();
+			utilities.setDecodeEntities(decodeEntities);
+			if (endLine > firstLine) {
+				utilities.setState(startStates[firstLine]);
+			}
+			TokenBuffer tokens = new TokenBuffer(Math.max((lineStarts[endLine] - lineStarts[firstLine]) / 4, 16));
+			for (int line = firstLine; line < endLine; line++) {
+				utilities.tokenize(document, lineStarts[line], lineEnds[line], tokens);
+			}
+			List<TokenBuffer> chunks = new ArrayList<>();
+			chunks.add(tokens);
+			return chunks;
+		}
+	}
+}
@@ -0,0 +1,146 @@
+import java.util.Arrays;
+
+/**
+ * A RenderPrinter that records every call made to it so the same output
+ * can be replayed to another printer later without rendering again.
+ * Calls are kept as parallel arrays of operation codes, header levels
+ * and text. Flushes are not recorded; whoever replays flushes the target.
+ *
+ * @author Aditya Dendukuri
+ * @since January 13 2025
+ */
+public class RecordingPrinter implements RenderPrinter {
+
+	private static final int DEFAULT_CAPACITY = 64;
+
+	// operation codes
+	private static final byte PRINT = 0;
+	private static final byte BOLD = 1;
+	private static final byte ITALIC = 2;
+	private static final byte HEADING = 3;
+	private static final byte PREFORMATTED = 4;
+	private static final byte NEWLINE = 5;
+	private static final byte BREAK = 6;
+	private static final byte RULE = 7;
+
+	private byte[] operations;		// what each call was
+	private int[] levels;			// header level of each HEADING call
+	private String[] texts;			// text of each call that prints text
+	private int size;				// number of calls recorded
+
+	/**
+	 * Creates an empty recording.
+	 */
+	public RecordingPrinter() {
+		operations = new byte[DEFAULT_CAPACITY];
+		levels = new int[DEFAULT_CAPACITY];
+		texts = new String[DEFAULT_CAPACITY];
+		size = 0;
+	}
+
+	@Override
+	public void print(String text) {
+		record(PRINT, 0, text);
+	}
+
+	@Override
+	public void printBold(String text) {
+		record(BOLD, 0, text);
+	}
+
+	@Override
+	public void printItalic(String text) {
+		record(ITALIC, 0, text);
+	}
+
+	@Override
+	public void printHeading(int level, String text) {
+		record(HEADING, level, text);
+	}
+
+	@Override
+	public void printPreformattedText(String text) {
+		record(PREFORMATTED, 0, text);
+	}
+
+	@Override
+	public void println() {
+		record(NEWLINE, 0, null);
+	}
+
+	@Override
+	public void printBreak() {
+		record(BREAK, 0, null);
+	}
+
+	@Override
+	public void printHorizontalRule() {
+		record(RULE, 0, null);
+	}
+
+	@Override
+	public void flush() {
+	}
+
+	/** @return the number of calls recorded */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Makes the same calls on another printer, in the order they were
+	 * recorded. The target is not flushed.
+	 *
+	 * @param target the printer to replay to
+	 */
+	public void replay(RenderPrinter target) {
+		for (int i = 0; i < size; i++) {
+			switch (operations[i]) {
+				case PRINT:
+					target.print(texts[i]);
+					break;
+				case BOLD:
+					target.printBold(texts[i]);
+					break;
+				case ITALIC:
+					target.printItalic(texts[i]);
+					break;
+				case HEADING:
+					target.printHeading(levels[i], texts[i]);
+					break;
+				case PREFORMATTED:
+					target.printPreformattedText(texts[i]);
+					break;
+				case NEWLINE:
+					target.println();
+					break;
+				case BREAK:
+					target.printBreak();
+					break;
+				default:
+					target.printHorizontalRule();
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Appends one call to the recording, growing the arrays if needed.
+	 *
+	 * @param operation the operation code
+	 * @param level     the header level, 0 if not a header
+	 * @param text      the text printed, null if none
+	 */
+	private void record(byte operation, int level, String text) {
+		if (size == operations.length) {
+			int capacity = operations.length * 2;
+			operations = Arrays.copyOf(operations, capacity);
+			levels = Arrays.copyOf(levels, capacity);
+			texts = Arrays.copyOf(texts, capacity);
+		}
+		operations[size] = operation;
+		levels[size] = level;
+		texts[size] = text;
+		size++;
+	}
+}
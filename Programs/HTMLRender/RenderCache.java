@@ -0,0 +1,123 @@
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of rendered documents, so a document that is rendered
+ * again and again is only tokenized and rendered once. Each entry is the
+ * RecordingPrinter of one render, keyed by a SHA-256 hash of the
+ * document's bytes together with the line-breaking settings it was
+ * rendered with. Every render starts with the tokenizer outside any
+ * comment or pre, so nothing else affects the output and the key needs
+ * nothing else. When the cache is full the least recently used entry is
+ * dropped.
+ *
+ * @author Aditya Dendukuri
+ * @since January 13 2025
+ */
+public class RenderCache {
+
+	private static final int DEFAULT_CAPACITY = 64;
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private final LinkedHashMap<String, RecordingPrinter> entries;
+	private long hits;
+	private long misses;
+
+	/**
+	 * Creates a cache of the default size.
+	 */
+	public RenderCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a cache.
+	 *
+	 * @param capacity the most documents kept at once
+	 */
+	public RenderCache(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+		}
+		// access order, so iteration starts at the least recently used entry
+		entries = new LinkedHashMap<String, RecordingPrinter>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, RecordingPrinter> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Makes the key for a document rendered with the given settings.
+	 *
+	 * @param content     the bytes of the document
+	 * @param lineBreaker the line breaker it is rendered with
+	 * @return the key to look the document up by
+	 */
+	public static String key(byte[] content, LineBreaker lineBreaker) {
+		byte[] hash;
+		try {
+			hash = MessageDigest.getInstance("SHA-256").digest(content);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("every Java platform has SHA-256", e);
+		}
+		StringBuilder key = new StringBuilder(hash.length * 2 + 24);
+		for (byte b : hash) {
+			key.append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+		}
+		key.append('/').append(lineBreaker.getMode());
+		key.append(lineBreaker.isProportional() ? "/proportional" : "/monospace");
+		key.append('/').append(LineBreaker.LINE_WIDTH);
+		return key.toString();
+	}
+
+	/**
+	 * @param key the key of a document
+	 * @return its recorded render, or null if it is not cached
+	 */
+	public synchronized RecordingPrinter get(String key) {
+		RecordingPrinter recording = entries.get(key);
+		if (recording == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		return recording;
+	}
+
+	/**
+	 * Caches the render of a document, dropping the least recently used
+	 * document if the cache is full.
+	 *
+	 * @param key       the key of the document
+	 * @param recording its recorded render
+	 */
+	public synchronized void put(String key, RecordingPrinter recording) {
+		entries.put(key, recording);
+	}
+
+	/** @return the number of documents cached */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/** @return the number of lookups that found their document */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/** @return the number of lookups that did not */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Empties the cache.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+}
@@ -0,0 +1,39 @@
+/**
+ * Where HTMLRender sends its output. Implementations draw in the Swing
+ * window (SwingPrinter) or write text for headless use (TextPrinter).
+ *
+ * @author Aditya Dendukuri
+ * @since December 18 2024
+ */
+public interface RenderPrinter {
+
+	/** @param text the text to print in the default style */
+	void print(String text);
+
+	/** @param text the text to print in bold */
+	void printBold(String text);
+
+	/** @param text the text to print in italics */
+	void printItalic(String text);
+
+	/**
+	 * @param level the header level, 1 through 6
+	 * @param text  the text to print in that header's style
+	 */
+	void printHeading(int level, String text);
+
+	/** @param text one line of preformatted text, printed as is */
+	void printPreformattedText(String text);
+
+	/** Ends the current line. */
+	void println();
+
+	/** Ends the current paragraph. */
+	void printBreak();
+
+	/** Prints a horizontal rule on its own line. */
+	void printHorizontalRule();
+
+	/** Pushes out anything the printer is holding back. */
+	void flush();
+}
@@ -0,0 +1,146 @@
+import java.util.Arrays;
+
+/**
+ * Tracks which styles are in effect while rendering, as a small bitset,
+ * along with the stack of style tags that are still open. Opening a tag
+ * adds its style on top of the current ones; closing it goes back to
+ * exactly the styles that were in effect before it was opened, so
+ * &lt;b&gt;&lt;i&gt;x&lt;/i&gt;y&lt;/b&gt; keeps y bold. A closing tag
+ * with no matching open tag is ignored, and closing an outer tag also
+ * closes any inner tags left open.
+ *
+ * @author Aditya Dendukuri
+ * @since December 23 2024
+ */
+public class StyleStack {
+
+	// style bits
+	public static final int BOLD = 1;
+	public static final int ITALIC = 2;
+	public static final int PREFORMAT = 4;
+	public static final int QUOTE = 8;
+	private static final int HEADING_SHIFT = 4;				// header level is kept in bits 4-6
+	private static final int HEADING_MASK = 7 << HEADING_SHIFT;
+
+	private static final int INITIAL_DEPTH = 16;
+	private static final int MAX_DEPTH = 1024;		// deeper tags change style but are not tracked
+
+	private TagName[] openTags;		// tags still open, outermost first
+	private int[] savedStyles;		// style in effect before each open tag
+	private int depth;				// number of open tags
+	private int style;				// style bits in effect now
+
+	/**
+	 * Creates a stack with no tags open and no styles in effect.
+	 */
+	public StyleStack() {
+		openTags = new TagName[INITIAL_DEPTH];
+		savedStyles = new int[INITIAL_DEPTH];
+		clear();
+	}
+
+	/**
+	 * Closes every tag and turns off every style.
+	 */
+	public void clear() {
+		Arrays.fill(openTags, 0, depth, null);
+		depth = 0;
+		style = 0;
+	}
+
+	/**
+	 * Opens a style tag, adding its style to the ones in effect.
+	 * Tags that have no style are ignored.
+	 *
+	 * @param tag the tag being opened
+	 */
+	public void open(TagName tag) {
+		int newStyle = style;
+		switch (tag) {
+			case B:
+				newStyle |= BOLD;
+				break;
+			case I:
+				newStyle |= ITALIC;
+				break;
+			case PRE:
+				newStyle |= PREFORMAT;
+				break;
+			case Q:
+				newStyle |= QUOTE;
+				break;
+			default:
+				int level = tag.headingLevel();
+				if (level == 0) {
+					return;
+				}
+				newStyle = (newStyle & ~HEADING_MASK) | (level << HEADING_SHIFT);
+				break;
+		}
+		if (depth < MAX_DEPTH) {
+			if (depth == openTags.length) {
+				openTags = Arrays.copyOf(openTags, depth * 2);
+				savedStyles = Arrays.copyOf(savedStyles, depth * 2);
+			}
+			openTags[depth] = tag;
+			savedStyles[depth] = style;
+			depth++;
+		}
+		style = newStyle;
+	}
+
+	/**
+	 * Closes the innermost open tag matching tag, along with any tags
+	 * opened inside it, and goes back to the styles from before it opened.
+	 *
+	 * @param tag the tag being closed
+	 */
+	public void close(TagName tag) {
+		for (int d = depth - 1; d >= 0; d--) {
+			if (openTags[d] == tag) {
+				style = savedStyles[d];
+				Arrays.fill(openTags, d, depth, null);
+				depth = d;
+				return;
+			}
+		}
+	}
+
+	/** @return true if bold is in effect */
+	public boolean isBold() {
+		return (style & BOLD) != 0;
+	}
+
+	/** @return true if italics are in effect */
+	public boolean isItalic() {
+		return (style & ITALIC) != 0;
+	}
+
+	/** @return true if inside a pre block */
+	public boolean isPreformatted() {
+		return (style & PREFORMAT) != 0;
+	}
+
+	/** @return true if inside a quote */
+	public boolean isQuoted() {
+		return (style & QUOTE) != 0;
+	}
+
+	/** @return the level of the innermost open header, 0 if none */
+	public int headingLevel() {
+		return headingLevel(style);
+	}
+
+	/**
+	 * @param style style bits, as returned by getStyle
+	 * @return the header level they include, 0 if none
+	 */
+	public static int headingLevel(int style) {
+		return (style & HEADING_MASK) >>> HEADING_SHIFT;
+	}
+
+	/** @return all the style bits in effect */
+	public int getStyle() {
+		return style;
+	}
+}
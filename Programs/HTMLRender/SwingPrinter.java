@@ -0,0 +1,90 @@
+/**
+ * Prints into the SimpleHtmlRenderer Swing window through its HtmlPrinter.
+ *
+ * @author Aditya Dendukuri
+ * @since December 18 2024
+ */
+public class SwingPrinter implements RenderPrinter {
+
+	private HtmlPrinter browser;
+
+	/**
+	 * Opens a new SimpleHtmlRenderer window to print into.
+	 */
+	public SwingPrinter() {
+		this(new SimpleHtmlRenderer().getHtmlPrinter());
+	}
+
+	/**
+	 * @param browser the HtmlPrinter of an open SimpleHtmlRenderer window
+	 */
+	public SwingPrinter(HtmlPrinter browser) {
+		this.browser = browser;
+	}
+
+	@Override
+	public void print(String text) {
+		browser.print(text);
+	}
+
+	@Override
+	public void printBold(String text) {
+		browser.printBold(text);
+	}
+
+	@Override
+	public void printItalic(String text) {
+		browser.printItalic(text);
+	}
+
+	@Override
+	public void printHeading(int level, String text) {
+		switch (level) {
+			case 1:
+				browser.printHeading1(text);
+				break;
+			case 2:
+				browser.printHeading2(text);
+				break;
+			case 3:
+				browser.printHeading3(text);
+				break;
+			case 4:
+				browser.printHeading4(text);
+				break;
+			case 5:
+				browser.printHeading5(text);
+				break;
+			case 6:
+				browser.printHeading6(text);
+				break;
+		}
+	}
+
+	@Override
+	public void printPreformattedText(String text) {
+		browser.printPreformattedText(text);
+	}
+
+	@Override
+	public void println() {
+		browser.println();
+	}
+
+	@Override
+	public void printBreak() {
+		browser.printBreak();
+	}
+
+	@Override
+	public void printHorizontalRule() {
+		browser.printHorizontalRule();
+	}
+
+	/**
+	 * The window draws as it goes, so there is nothing to flush.
+	 */
+	@Override
+	public void flush() {
+	}
+}
@@ -0,0 +1,150 @@
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * The attributes of a tag token such as &lt;a href="x.html" class=link&gt;.
+ * Nothing is parsed until an attribute is asked for, so tags whose
+ * attributes are never looked at cost nothing extra. Attribute names are
+ * matched ignoring case; values are returned without their quotes.
+ *
+ * @author Aditya Dendukuri
+ * @since January 6 2025
+ */
+public class TagAttributes {
+
+	private final CharSequence source;	// text holding the tag
+	private final int start;			// index of the tag's '<'
+	private final int end;				// index one past the tag's '>'
+
+	private ArrayList<String> names;	// lowercase names, null until parsed
+	private ArrayList<String> values;	// values, "" for attributes with none
+
+	/**
+	 * @param source the text the tag token was found in
+	 * @param start  the index of the tag's '&lt;' in source
+	 * @param length the number of chars in the tag token
+	 */
+	public TagAttributes(CharSequence source, int start, int length) {
+		this.source = source;
+		this.start = start;
+		this.end = start + length;
+	}
+
+	/**
+	 * @return the number of attributes
+	 */
+	public int size() {
+		parse();
+		return names.size();
+	}
+
+	/**
+	 * @param index the attribute number, in the order they appear
+	 * @return the lowercase name of the attribute
+	 */
+	public String getName(int index) {
+		parse();
+		return names.get(index);
+	}
+
+	/**
+	 * @param index the attribute number, in the order they appear
+	 * @return the value of the attribute, "" if it has none
+	 */
+	public String getValue(int index) {
+		parse();
+		return values.get(index);
+	}
+
+	/**
+	 * @param name the attribute name
+	 * @return the value of the first attribute with that name, "" if it
+	 *         has no value, or null if the tag does not have it
+	 */
+	public String get(String name) {
+		parse();
+		for (int j = 0; j < names.size(); j++) {
+			if (names.get(j).equalsIgnoreCase(name)) {
+				return values.get(j);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param name the attribute name
+	 * @return true if the tag has that attribute
+	 */
+	public boolean has(String name) {
+		return get(name) != null;
+	}
+
+	/**
+	 * Splits the tag into attributes the first time one is asked for.
+	 */
+	private void parse() {
+		if (names != null) {
+			return;
+		}
+		names = new ArrayList<>();
+		values = new ArrayList<>();
+		int last = (end > start && source.charAt(end - 1) == '>') ? end - 1 : end;
+
+		// skip '<', an optional '/', and the tag name
+		int i = start + 1;
+		if (i < last && source.charAt(i) == '/') {
+			i++;
+		}
+		while (i < last && !isSeparator(source.charAt(i))) {
+			i++;
+		}
+
+		while (i < last) {
+			char c = source.charAt(i);
+			if (isSeparator(c)) {
+				i++;
+				continue;
+			}
+			int nameStart = i;
+			while (i < last && !isSeparator(source.charAt(i)) && source.charAt(i) != '=') {
+				i++;
+			}
+			String name = source.subSequence(nameStart, i).toString().toLowerCase(Locale.ROOT);
+			while (i < last && Character.isWhitespace(source.charAt(i))) {
+				i++;
+			}
+			String value = "";
+			if (i < last && source.charAt(i) == '=') {
+				i++;
+				while (i < last && Character.isWhitespace(source.charAt(i))) {
+					i++;
+				}
+				if (i < last && (source.charAt(i) == '"' || source.charAt(i) == '\'')) {
+					char quote = source.charAt(i);
+					int valueStart = ++i;
+					while (i < last && source.charAt(i) != quote) {
+						i++;
+					}
+					value = source.subSequence(valueStart, i).toString();
+					i++;
+				} else {
+					int valueStart = i;
+					while (i < last && !Character.isWhitespace(source.charAt(i))) {
+						i++;
+					}
+					value = source.subSequence(valueStart, i).toString();
+				}
+			}
+			names.add(name);
+			values.add(value);
+		}
+	}
+
+	/**
+	 * @param c a char inside the tag
+	 * @return true if c separates attributes
+	 */
+	private boolean isSeparator(char c) {
+		return Character.isWhitespace(c) || c == '/';
+	}
+}
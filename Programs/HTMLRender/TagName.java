@@ -0,0 +1,86 @@
+/**
+ * The tags HTMLRender knows how to render. Tag tokens are resolved to one
+ * of these once, when they are tokenized, so the renderer can switch on
+ * the tag instead of lowercasing and comparing Strings for every token.
+ *
+ * @author Aditya Dendukuri
+ * @since December 16 2024
+ */
+public enum TagName {
+	P("p"), B("b"), I("i"), Q("q"), PRE("pre"), BR("br"), HR("hr"),
+	H1("h1"), H2("h2"), H3("h3"), H4("h4"), H5("h5"), H6("h6"),
+	OTHER("");		// any other tag, and every token that is not a tag
+
+	private static final TagName[] KNOWN = {
+		P, B, I, Q, PRE, BR, HR, H1, H2, H3, H4, H5, H6
+	};
+
+	private final String name;		// lowercase name between the brackets
+
+	private TagName(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @return the header level 1 through 6 for H1 to H6, otherwise 0
+	 */
+	public int headingLevel() {
+		if (ordinal() >= H1.ordinal() && ordinal() <= H6.ordinal()) {
+			return ordinal() - H1.ordinal() + 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Finds the tag named by a tag token like "&lt;b&gt;", "&lt;/H1&gt;" or
+	 * "&lt;p class=\"intro\"&gt;", ignoring case and any attributes.
+	 * Nothing is allocated.
+	 *
+	 * @param source the text the token was found in
+	 * @param start  the index of the token's '&lt;' in source
+	 * @param length the number of chars in the token
+	 * @return the tag, or OTHER if the token is not a known tag
+	 */
+	public static TagName resolve(CharSequence source, int start, int length) {
+		int end = start + length;
+		if (length < 3 || source.charAt(start) != '<' || source.charAt(end - 1) != '>') {
+			return OTHER;
+		}
+		int nameStart = start + 1;
+		if (source.charAt(nameStart) == '/') {
+			nameStart++;
+		}
+		int nameEnd = nameStart;
+		while (nameEnd < end - 1 && Character.isLetterOrDigit(source.charAt(nameEnd))) {
+			nameEnd++;
+		}
+		char after = source.charAt(nameEnd);
+		if (after != '>' && after != '/' && !Character.isWhitespace(after)) {
+			return OTHER;
+		}
+		for (TagName tag : KNOWN) {
+			if (tag.nameMatches(source, nameStart, nameEnd - nameStart)) {
+				return tag;
+			}
+		}
+		return OTHER;
+	}
+
+	/**
+	 * @param source     the text holding a tag name
+	 * @param nameStart  the index of the first char of the name
+	 * @param nameLength the number of chars in the name
+	 * @return true if the name is this tag's name, ignoring case
+	 */
+	private boolean nameMatches(CharSequence source, int nameStart, int nameLength) {
+		if (nameLength != name.length()) {
+			return false;
+		}
+		for (int j = 0; j < nameLength; j++) {
+			if (Character.toLowerCase(source.charAt(nameStart + j)) != name.charAt(j)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
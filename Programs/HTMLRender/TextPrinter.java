@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Prints rendered HTML as plain text, or as text with ANSI terminal
+ * styling for bold, italics and headers. Output is collected in a large
+ * buffer and written to the Writer in big chunks, so no window is needed
+ * and each print call is just an append.
+ *
+ * @author Aditya Dendukuri
+ * @since December 18 2024
+ */
+public class TextPrinter implements RenderPrinter {
+
+	private static final int BUFFER_SIZE = 1 << 16;		// chars held before writing
+	private static final int RULE_WIDTH = 80;
+
+	// ANSI escape sequences for each style
+	private static final String ANSI_RESET = "\u001b[0m";
+	private static final String ANSI_BOLD = "\u001b[1m";
+	private static final String ANSI_ITALIC = "\u001b[3m";
+	private static final String ANSI_HEADING = "\u001b[1;4m";
+
+	private final Writer output;
+	private final boolean ansi;			// true to style text with ANSI codes
+	private final StringBuilder buffer;
+	private String style;				// ANSI code currently in effect
+	private boolean lineStarted;		// true if text has been printed on this line
+
+	/**
+	 * @param output where the text goes
+	 * @param ansi   true to add ANSI styling, false for plain text
+	 */
+	public TextPrinter(Writer output, boolean ansi) {
+		this.output = output;
+		this.ansi = ansi;
+		buffer = new StringBuilder(BUFFER_SIZE);
+		style = ANSI_RESET;
+		lineStarted = false;
+	}
+
+	@Override
+	public void print(String text) {
+		append(ANSI_RESET, text);
+	}
+
+	@Override
+	public void printBold(String text) {
+		append(ANSI_BOLD, text);
+	}
+
+	@Override
+	public void printItalic(String text) {
+		append(ANSI_ITALIC, text);
+	}
+
+	@Override
+	public void printHeading(int level, String text) {
+		append(ANSI_HEADING, text);
+	}
+
+	@Override
+	public void printPreformattedText(String text) {
+		append(ANSI_RESET, text);
+	}
+
+	@Override
+	public void println() {
+		setStyle(ANSI_RESET);
+		buffer.append('\n');
+		lineStarted = false;
+		writeIfFull();
+	}
+
+	/**
+	 * Ends the line if anything is on it, then leaves a blank line.
+	 */
+	@Override
+	public void printBreak() {
+		if (lineStarted) {
+			println();
+		}
+		println();
+	}
+
+	@Override
+	public void printHorizontalRule() {
+		if (lineStarted) {
+			println();
+		}
+		setStyle(ANSI_RESET);
+		for (int j = 0; j < RULE_WIDTH; j++) {
+			buffer.append('-');
+		}
+		println();
+	}
+
+	/**
+	 * Writes out everything buffered and flushes the Writer.
+	 *
+	 * @throws UncheckedIOException if writing fails
+	 */
+	@Override
+	public void flush() {
+		setStyle(ANSI_RESET);
+		try {
+			writeBuffer();
+			output.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Adds text to the buffer in the given style.
+	 *
+	 * @param code the ANSI code for the style
+	 * @param text the text to add
+	 */
+	private void append(String code, String text) {
+		setStyle(code);
+		buffer.append(text);
+		lineStarted = true;
+		writeIfFull();
+	}
+
+	/**
+	 * Switches style, adding the ANSI code only if the style changes.
+	 *
+	 * @param code the ANSI code for the new style
+	 */
+	private void setStyle(String code) {
+		if (ansi && !code.equals(style)) {
+			if (!style.equals(ANSI_RESET)) {
+				buffer.append(ANSI_RESET);
+			}
+			if (!code.equals(ANSI_RESET)) {
+				buffer.append(code);
+			}
+		}
+		style = code;
+	}
+
+	/**
+	 * Writes the buffer out once it holds a full chunk.
+	 *
+	 * @throws UncheckedIOException if writing fails
+	 */
+	private void writeIfFull() {
+		if (buffer.length() >= BUFFER_SIZE) {
+			try {
+				writeBuffer();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Writes the buffer to the Writer and empties it.
+	 *
+	 * @throws IOException if writing fails
+	 */
+	private void writeBuffer() throws IOException {
+		output.append(buffer);
+		buffer.setLength(0);
+	}
+}
@@ -0,0 +1,247 @@
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * A reusable buffer of token spans. Each token is stored as the text it
+ * came from plus a (start, length, type) span into that text, so no String
+ * is created for a token until someone asks for one with getToken.
+ *
+ * @author Aditya Dendukuri
+ * @since December 2 2024
+ */
+public class TokenBuffer implements TokenSink {
+
+	private static final int DEFAULT_CAPACITY = 64;
+
+	private CharSequence[] sources;		// text each token was taken from
+	private int[] starts;				// index of the first char of each token
+	private int[] lengths;				// number of chars in each token
+	private TokenType[] types;			// kind of each token
+	private TagName[] tagNames;			// tag each tag token names, OTHER for the rest
+	private int size;					// number of tokens in the buffer
+
+	/**
+	 * Creates an empty buffer with a small default capacity.
+	 */
+	public TokenBuffer() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty buffer.
+	 *
+	 * @param initialCapacity the number of tokens the buffer holds before growing
+	 */
+	public TokenBuffer(int initialCapacity) {
+		int capacity = Math.max(initialCapacity, 1);
+		sources = new CharSequence[capacity];
+		starts = new int[capacity];
+		lengths = new int[capacity];
+		types = new TokenType[capacity];
+		tagNames = new TagName[capacity];
+		size = 0;
+	}
+
+	/**
+	 * Appends a token span to the end of the buffer, growing it if needed.
+	 * Tag tokens are resolved to their TagName here, once.
+	 *
+	 * @param source the text the token was found in
+	 * @param start  the index of the first char of the token in source
+	 * @param length the number of chars in the token
+	 * @param type   the kind of token
+	 */
+	@Override
+	public void addToken(CharSequence source, int start, int length, TokenType type) {
+		TagName tagName = TagName.OTHER;
+		if (type == TokenType.OPEN_TAG || type == TokenType.CLOSE_TAG) {
+			tagName = TagName.resolve(source, start, length);
+		}
+		addToken(source, start, length, type, tagName);
+	}
+
+	/**
+	 * Appends a token span whose tag has already been resolved.
+	 *
+	 * @param source  the text the token was found in
+	 * @param start   the index of the first char of the token in source
+	 * @param length  the number of chars in the token
+	 * @param type    the kind of token
+	 * @param tagName the tag the token names, OTHER if it is not a known tag
+	 */
+	public void addToken(CharSequence source, int start, int length, TokenType type, TagName tagName) {
+		if (size == starts.length) {
+			grow();
+		}
+		sources[size] = source;
+		starts[size] = start;
+		lengths[size] = length;
+		types[size] = type;
+		tagNames[size] = tagName;
+		size++;
+	}
+
+	/**
+	 * Empties the buffer so it can be reused. The capacity is kept.
+	 */
+	public void clear() {
+		Arrays.fill(sources, 0, size, null);
+		size = 0;
+	}
+
+	/** @return the number of tokens in the buffer */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param index the token number
+	 * @return the text the token was found in
+	 */
+	public CharSequence getSource(int index) {
+		checkIndex(index);
+		return sources[index];
+	}
+
+	/**
+	 * @param index the token number
+	 * @return the index of the token's first char within its source
+	 */
+	public int getStart(int index) {
+		checkIndex(index);
+		return starts[index];
+	}
+
+	/**
+	 * @param index the token number
+	 * @return the number of chars in the token
+	 */
+	public int getLength(int index) {
+		checkIndex(index);
+		return lengths[index];
+	}
+
+	/**
+	 * @param index the token number
+	 * @return the kind of the token
+	 */
+	public TokenType getType(int index) {
+		checkIndex(index);
+		return types[index];
+	}
+
+	/**
+	 * @param index the token number
+	 * @return the tag the token names, OTHER if it is not a known tag
+	 */
+	public TagName getTagName(int index) {
+		checkIndex(index);
+		return tagNames[index];
+	}
+
+	/**
+	 * @param index the token number
+	 * @return the attributes of the tag token, parsed only when first used
+	 */
+	public TagAttributes getAttributes(int index) {
+		checkIndex(index);
+		return new TagAttributes(sources[index], starts[index], lengths[index]);
+	}
+
+	/**
+	 * Returns one char of a token without creating the token's String.
+	 *
+	 * @param index  the token number
+	 * @param offset the position of the char within the token
+	 * @return the char
+	 */
+	public char charAt(int index, int offset) {
+		checkIndex(index);
+		if (offset < 0 || offset >= lengths[index]) {
+			throw new IndexOutOfBoundsException("offset " + offset + " in token of length "
+					+ lengths[index]);
+		}
+		return sources[index].charAt(starts[index] + offset);
+	}
+
+	/**
+	 * Compares a token to a String without creating the token's String.
+	 *
+	 * @param index the token number
+	 * @param str   the String to compare against
+	 * @return true if the token has exactly the chars of str, false otherwise
+	 */
+	public boolean tokenEquals(int index, String str) {
+		checkIndex(index);
+		int length = lengths[index];
+		if (length != str.length()) {
+			return false;
+		}
+		CharSequence source = sources[index];
+		int start = starts[index];
+		for (int j = 0; j < length; j++) {
+			if (source.charAt(start + j) != str.charAt(j)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Creates the String for one token.
+	 *
+	 * @param index the token number
+	 * @return the token as a String
+	 */
+	public String getToken(int index) {
+		checkIndex(index);
+		CharSequence source = sources[index];
+		int start = starts[index];
+		int end = start + lengths[index];
+		if (source instanceof String) {
+			return ((String) source).substring(start, end);
+		}
+		if (source instanceof CharBuffer && ((CharBuffer) source).hasArray()) {
+			// straight from the array, without a CharBuffer for the span
+			CharBuffer chars = (CharBuffer) source;
+			return new String(chars.array(), chars.arrayOffset() + chars.position() + start, end - start);
+		}
+		return source.subSequence(start, end).toString();
+	}
+
+	/**
+	 * Creates the Strings for every token in the buffer.
+	 *
+	 * @return an array exactly the size of the number of tokens
+	 */
+	public String[] toArray() {
+		String[] tokens = new String[size];
+		for (int j = 0; j < size; j++) {
+			tokens[j] = getToken(j);
+		}
+		return tokens;
+	}
+
+	/**
+	 * Doubles the capacity of every parallel array.
+	 */
+	private void grow() {
+		int capacity = starts.length * 2;
+		sources = Arrays.copyOf(sources, capacity);
+		starts = Arrays.copyOf(starts, capacity);
+		lengths = Arrays.copyOf(lengths, capacity);
+		types = Arrays.copyOf(types, capacity);
+		tagNames = Arrays.copyOf(tagNames, capacity);
+	}
+
+	/**
+	 * Throws if index is not the number of a token in the buffer.
+	 *
+	 * @param index the token number to check
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("token " + index + " of " + size);
+		}
+	}
+}
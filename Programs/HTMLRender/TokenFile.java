@@ -0,0 +1,334 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+/**
+ * A tokenized HTML document saved in a compact binary file, so it can be
+ * rendered or indexed again without tokenizing it again. The file is read
+ * back through a memory mapping. The layout is:
+ *
+ *		"HTOK" version flags               magic, format version byte and
+ *		                                   flags byte (1 = entities decoded)
+ *		entryCount, lineCount              varints
+ *		entryCount x (byteLength, UTF-8)   dictionary of token strings
+ *		lineCount x (state, tokenCount,    state byte the line starts in,
+ *		    tokenCount x (type, entry))    type byte and dictionary entry
+ *
+ * Every different token string is stored once in the dictionary, so a
+ * repeated word costs two or three bytes. Tokens come back line by line
+ * with their types, exactly as they were tokenized. A tag split across
+ * lines is joined into one token by a LineJoiner and saved with the line
+ * it starts on; the lines it continues onto are saved with no tokens.
+ * Entities are decoded while tokenizing unless -noentities is given, the
+ * same as HTMLRender does, and the file records which was done. Run
+ * with:
+ *
+ *		java TokenFile [-noentities] htmlFileName tokenFileName
+ *
+ * @author Aditya Dendukuri
+ * @since January 22 2025
+ */
+public class TokenFile {
+
+	public static final String EXTENSION = ".htok";
+
+	private static final byte[] MAGIC = { 'H', 'T', 'O', 'K' };
+	private static final int VERSION = 2;
+	private static final int ENTITIES_DECODED = 1;		// flag set when entities were decoded
+	private static final TokenType[] TOKEN_TYPES = TokenType.values();
+	private static final HTMLUtilities.TokenState[] STATES = HTMLUtilities.TokenState.values();
+
+	private final boolean entitiesDecoded;	// true if entities were decoded while tokenizing
+	private final String[] entries;			// the dictionary
+	private final TagName[] entryTags;		// tag each entry names, OTHER if none
+	private final ByteBuffer lines;			// the mapped line records
+	private final int[] lineOffsets;		// where each line's record starts in lines
+
+	public static void main(String[] args) {
+		boolean decodeEntities = !(args.length > 2 && args[0].equals("-noentities"));
+		if (args.length < 2) {
+			System.out.println("Usage: java TokenFile [-noentities] htmlFileName tokenFileName");
+			System.exit(0);
+		}
+		String htmlFile = args[args.length - 2];
+		String tokenFile = args[args.length - 1];
+		try {
+			long start = System.nanoTime();
+			int lineCount = write(htmlFile, tokenFile, decodeEntities);
+			System.out.printf("%s: %d lines in %.1f ms%n", tokenFile, lineCount, (System.nanoTime() - start) / 1e6);
+		} catch (IOException e) {
+			System.err.println("Error: Can not convert " + htmlFile + ": " + e.getMessage());
+			System.exit(72);
+		}
+	}
+
+	/**
+	 * Tokenizes an HTML file line by line, joining tags split across
+	 * lines, and saves the tokens. The file is written to a temporary file
+	 * and renamed over tokenFile only when it is complete, so a conversion
+	 * that fails or is interrupted leaves any old token file as it was.
+	 *
+	 * @param htmlFile       the HTML file to tokenize
+	 * @param tokenFile      the token file to write
+	 * @param decodeEntities true to decode entities while tokenizing
+	 * @return the number of lines saved
+	 * @throws IOException if a file can not be read or written
+	 */
+	public static int write(String htmlFile, String tokenFile, boolean decodeEntities) throws IOException {
+		HTMLUtilities util = new HTMLUtilities();
+		util.setDecodeEntities(decodeEntities);
+		LineJoiner joiner = new LineJoiner(util);
+		TokenBuffer tokens = new TokenBuffer();
+		Recorder recorder = new Recorder();
+		HTMLUtilities.TokenState state = util.getState();	// state at the start of the held lines
+		try (MappedLineReader input = new MappedLineReader(htmlFile)) {
+			while (input.nextLine()) {
+				if (!joiner.isHolding()) {
+					state = util.getState();
+				}
+				int lineCount = joiner.tokenizeLine(input.getLine(), tokens);
+				recorder.addLines(state, tokens, lineCount);
+			}
+		}
+		recorder.addLines(state, tokens, joiner.finish(tokens));
+		recorder.finishLine();
+
+		try (DataOutputStream out = new DataOutputStream(
+				new FileUtils.BatchOutputStream(tokenFile, 1 << 16, false, true))) {
+			VarIntBuffer header = new VarIntBuffer();
+			header.writeBytes(MAGIC, 0, MAGIC.length);
+			header.writeByte(VERSION);
+			header.writeByte(decodeEntities ? ENTITIES_DECODED : 0);
+			header.writeVarInt(recorder.entryCount);
+			header.writeVarInt(recorder.lineCount);
+			header.writeTo(out);
+			recorder.dictionary.writeTo(out);
+			recorder.lines.writeTo(out);
+		}
+		return recorder.lineCount;
+	}
+
+	/**
+	 * Opens a token file by mapping it into memory and reading its
+	 * dictionary. Lines are read from the mapping as they are asked for.
+	 *
+	 * @param tokenFile the token file to read
+	 * @return the opened file
+	 * @throws IOException if the file can not be read or is not a token file
+	 */
+	public static TokenFile open(String tokenFile) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(tokenFile), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("token files over 2GB are not supported: " + tokenFile);
+			}
+			// the mapping stays valid after the channel is closed
+			return new TokenFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), tokenFile);
+		}
+	}
+
+	/**
+	 * Reads the header and dictionary of a mapped token file and finds
+	 * where each line starts.
+	 *
+	 * @param in   the whole file
+	 * @param name the file name, for errors
+	 * @throws IOException if the file is not a token file of this version
+	 */
+	private TokenFile(ByteBuffer in, String name) throws IOException {
+		try {
+			for (byte b : MAGIC) {
+				if (in.get() != b) {
+					throw new IOException(name + " is not a token file");
+				}
+			}
+			int version = in.get();
+			if (version != VERSION) {
+				throw new IOException(name + " is token file version " + version + ", expected " + VERSION);
+			}
+			entitiesDecoded = (in.get() & ENTITIES_DECODED) != 0;
+			entries = new String[VarIntBuffer.readVarInt(in)];
+			entryTags = new TagName[entries.length];
+			lineOffsets = new int[VarIntBuffer.readVarInt(in) + 1];
+
+			byte[] utf8 = new byte[64];
+			for (int e = 0; e < entries.length; e++) {
+				int length = VarIntBuffer.readVarInt(in);
+				if (length > utf8.length) {
+					utf8 = new byte[Math.max(length, utf8.length * 2)];
+				}
+				in.get(utf8, 0, length);
+				entries[e] = new String(utf8, 0, length, StandardCharsets.UTF_8);
+				entryTags[e] = TagName.OTHER;
+				if (length > 1 && utf8[0] == '<') {
+					entryTags[e] = TagName.resolve(entries[e], 0, entries[e].length());
+				}
+			}
+
+			lines = in.slice();
+			for (int line = 0; line + 1 < lineOffsets.length; line++) {
+				lineOffsets[line] = lines.position();
+				lines.get();
+				int tokenCount = VarIntBuffer.readVarInt(lines);
+				for (int t = 0; t < tokenCount; t++) {
+					lines.get();
+					VarIntBuffer.readVarInt(lines);
+				}
+			}
+			lineOffsets[lineOffsets.length - 1] = lines.position();
+		} catch (RuntimeException e) {
+			throw new IOException(name + " is damaged: " + e, e);
+		}
+	}
+
+	/** @return true if entities were decoded while the document was tokenized */
+	public boolean isEntitiesDecoded() {
+		return entitiesDecoded;
+	}
+
+	/** @return the number of lines in the document */
+	public int getLineCount() {
+		return lineOffsets.length - 1;
+	}
+
+	/**
+	 * @param line the line number, starting at 0
+	 * @return the block the tokenizer was inside at the start of the line
+	 */
+	HTMLUtilities.TokenState getStartState(int line) {
+		checkLine(line);
+		return STATES[lines.get(lineOffsets[line])];
+	}
+
+	/**
+	 * Appends the tokens of one line to a buffer. Tags come with their
+	 * TagName already resolved.
+	 *
+	 * @param line   the line number, starting at 0
+	 * @param tokens the buffer to add the tokens to
+	 */
+	public void readLine(int line, TokenBuffer tokens) {
+		checkLine(line);
+		ByteBuffer in = lines.duplicate();
+		in.position(lineOffsets[line] + 1);
+		int tokenCount = VarIntBuffer.readVarInt(in);
+		for (int t = 0; t < tokenCount; t++) {
+			TokenType type = TOKEN_TYPES[in.get()];
+			int entry = VarIntBuffer.readVarInt(in);
+			String token = entries[entry];
+			boolean tag = type == TokenType.OPEN_TAG || type == TokenType.CLOSE_TAG;
+			tokens.addToken(token, 0, token.length(), type, tag ? entryTags[entry] : TagName.OTHER);
+		}
+	}
+
+	/**
+	 * Hands every token of the document to a sink in order, as if the
+	 * document were being tokenized.
+	 *
+	 * @param sink receives every token
+	 */
+	public void replay(TokenSink sink) {
+		ByteBuffer in = lines.duplicate();
+		in.position(0);
+		for (int line = 0; line < getLineCount(); line++) {
+			in.get();
+			int tokenCount = VarIntBuffer.readVarInt(in);
+			for (int t = 0; t < tokenCount; t++) {
+				TokenType type = TOKEN_TYPES[in.get()];
+				String token = entries[VarIntBuffer.readVarInt(in)];
+				sink.addToken(token, 0, token.length(), type);
+			}
+		}
+	}
+
+	/**
+	 * @param line a line number
+	 * @throws IndexOutOfBoundsException if there is no such line
+	 */
+	private void checkLine(int line) {
+		if (line < 0 || line >= getLineCount()) {
+			throw new IndexOutOfBoundsException("line " + line + " of " + getLineCount());
+		}
+	}
+
+	/**
+	 * Collects tokens into the dictionary and line records while a
+	 * document is tokenized.
+	 */
+	private static class Recorder implements TokenSink {
+
+		private final HashMap<String, Integer> entryNumbers = new HashMap<>();
+		private final VarIntBuffer dictionary = new VarIntBuffer();
+		private final VarIntBuffer lines = new VarIntBuffer();
+		private final VarIntBuffer lineTokens = new VarIntBuffer();	// tokens of the current line
+		private int entryCount;
+		private int lineCount;
+		private int lineTokenCount;
+		private boolean inLine;
+
+		/**
+		 * Records lines whose tokens were tokenized together: the tokens
+		 * go with the first line and the rest get none.
+		 *
+		 * @param state     the block the tokenizer is inside at their start
+		 * @param tokens    the tokens of the lines
+		 * @param lineCount the number of lines, 0 for none
+		 */
+		private void addLines(HTMLUtilities.TokenState state, TokenBuffer tokens, int lineCount) {
+			for (int line = 0; line < lineCount; line++) {
+				startLine(state);
+				if (line == 0) {
+					for (int t = 0; t < tokens.size(); t++) {
+						addToken(tokens.getSource(t), tokens.getStart(t), tokens.getLength(t), tokens.getType(t));
+					}
+				}
+			}
+		}
+
+		/**
+		 * Finishes the line before, if any, and starts the next one.
+		 *
+		 * @param state the block the tokenizer is inside at its start
+		 */
+		private void startLine(HTMLUtilities.TokenState state) {
+			finishLine();
+			lines.writeByte(state.ordinal());
+			inLine = true;
+		}
+
+		/**
+		 * Writes the current line's token count and tokens.
+		 */
+		private void finishLine() {
+			if (!inLine) {
+				return;
+			}
+			lines.writeVarInt(lineTokenCount);
+			lines.writeBytes(lineTokens);
+			lineTokens.clear();
+			lineTokenCount = 0;
+			lineCount++;
+			inLine = false;
+		}
+
+		@Override
+		public void addToken(CharSequence source, int start, int length, TokenType type) {
+			String token = source.subSequence(start, start + length).toString();
+			Integer entry = entryNumbers.get(token);
+			if (entry == null) {
+				entry = entryCount++;
+				entryNumbers.put(token, entry);
+				byte[] utf8 = token.getBytes(StandardCharsets.UTF_8);
+				dictionary.writeVarInt(utf8.length);
+				dictionary.writeBytes(utf8, 0, utf8.length);
+			}
+			lineTokens.writeByte(type.ordinal());
+			lineTokens.writeVarInt(entry);
+			lineTokenCount++;
+		}
+	}
+}
@@ -0,0 +1,20 @@
+/**
+ * Receives tokens from the HTMLUtilities tokenizer as they are found.
+ * Each token is given as a span of the text it came from, so a sink that
+ * only counts or inspects tokens never has to create a String.
+ *
+ * @author Aditya Dendukuri
+ * @since December 4 2024
+ */
+public interface TokenSink {
+
+	/**
+	 * Called once for every token, in the order the tokens appear.
+	 *
+	 * @param source the text the token was found in
+	 * @param start  the index of the first char of the token in source
+	 * @param length the number of chars in the token
+	 * @param type   the kind of token
+	 */
+	void addToken(CharSequence source, int start, int length, TokenType type);
+}
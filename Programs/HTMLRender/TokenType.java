@@ -0,0 +1,14 @@
+/**
+ * The kinds of tokens produced by the HTMLUtilities tokenizer.
+ *
+ * @author Aditya Dendukuri
+ * @since December 2 2024
+ */
+public enum TokenType {
+	OPEN_TAG,		// anything from '<' up to and including '>', except...
+	CLOSE_TAG,		// ...tags that start with "</"
+	WORD,			// letters, possibly joined by a single hyphen
+	NUMBER,			// integers, decimals and scientific notation
+	PUNCTUATION,	// a single punctuation character
+	PREFORMAT		// an entire line inside a <pre> block
+}
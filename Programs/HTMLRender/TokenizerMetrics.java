@@ -0,0 +1,258 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts what HTMLUtilities does: tokens of each kind, chars scanned as
+ * text, inside comments and inside pre blocks, lines tokenized, and how
+ * long each line took. Turn it on with HTMLUtilities.setMetrics; when no
+ * metrics are set the tokenizer only checks for null once per line.
+ *
+ * Several tokenizers, on any threads, can share one TokenizerMetrics.
+ * Counts are added once per line, not once per token. A snapshot copies
+ * every count, but lines finishing while it is taken may be only partly
+ * included. The metrics can also be read over JMX once registered.
+ *
+ * @author Aditya Dendukuri
+ * @since January 17 2025
+ */
+public class TokenizerMetrics implements TokenizerMetricsMXBean {
+
+	private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+	private final AtomicLongArray tokenCounts;	// [TokenType ordinal]
+	private final AtomicLong lines;
+	private final AtomicLong textChars;
+	private final AtomicLong commentChars;
+	private final AtomicLong preformatChars;
+	private final LatencyHistogram lineLatency;
+
+	/**
+	 * Creates metrics with every count at 0.
+	 */
+	public TokenizerMetrics() {
+		tokenCounts = new AtomicLongArray(TOKEN_TYPES.length);
+		lines = new AtomicLong();
+		textChars = new AtomicLong();
+		commentChars = new AtomicLong();
+		preformatChars = new AtomicLong();
+		lineLatency = new LatencyHistogram();
+	}
+
+	/**
+	 * Adds the counts of one tokenized line and clears lineTokenCounts for
+	 * the next line.
+	 *
+	 * @param lineTokenCounts the tokens of each kind found, by TokenType ordinal
+	 * @param lineLength      the number of chars in the line
+	 * @param comment         how many of them were inside a comment
+	 * @param preformat       how many of them were inside a pre block
+	 * @param nanos           how long the line took
+	 */
+	void recordLine(int[] lineTokenCounts, int lineLength, int comment, int preformat, long nanos) {
+		for (int t = 0; t < lineTokenCounts.length; t++) {
+			if (lineTokenCounts[t] != 0) {
+				tokenCounts.addAndGet(t, lineTokenCounts[t]);
+				lineTokenCounts[t] = 0;
+			}
+		}
+		lines.incrementAndGet();
+		textChars.addAndGet(lineLength - comment - preformat);
+		commentChars.addAndGet(comment);
+		preformatChars.addAndGet(preformat);
+		lineLatency.record(nanos);
+	}
+
+	/**
+	 * @return a copy of every count as it is now
+	 */
+	public Snapshot snapshot() {
+		long[] tokens = new long[TOKEN_TYPES.length];
+		for (int t = 0; t < tokens.length; t++) {
+			tokens[t] = tokenCounts.get(t);
+		}
+		return new Snapshot(lines.get(), tokens, textChars.get(), commentChars.get(),
+				preformatChars.get(), lineLatency.copy());
+	}
+
+	/**
+	 * Registers these metrics with the platform MBean server, so they show
+	 * up in JConsole under HTMLRender/TokenizerMetrics.
+	 *
+	 * @param name a name that tells these metrics apart from others
+	 * @throws IllegalStateException if metrics with that name are already
+	 *                               registered
+	 */
+	public void register(String name) {
+		try {
+			ObjectName objectName = new ObjectName("HTMLRender:type=TokenizerMetrics,name=" + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		} catch (JMException e) {
+			throw new IllegalStateException("Can not register tokenizer metrics " + name, e);
+		}
+	}
+
+	@Override
+	public long getLines() {
+		return lines.get();
+	}
+
+	@Override
+	public Map<String, Long> getTokenCounts() {
+		return snapshot().getTokenCounts();
+	}
+
+	@Override
+	public Map<String, Long> getCharsByState() {
+		return snapshot().getCharsByState();
+	}
+
+	@Override
+	public long getLineLatencyMedianNanos() {
+		return lineLatency.getValueAtPercentile(50);
+	}
+
+	@Override
+	public long getLineLatency99thPercentileNanos() {
+		return lineLatency.getValueAtPercentile(99);
+	}
+
+	@Override
+	public long getLineLatencyMaxNanos() {
+		return lineLatency.getMax();
+	}
+
+	@Override
+	public double getLineLatencyMeanNanos() {
+		return lineLatency.getMean();
+	}
+
+	/**
+	 * Sets every count back to 0.
+	 */
+	@Override
+	public void reset() {
+		for (int t = 0; t < TOKEN_TYPES.length; t++) {
+			tokenCounts.set(t, 0);
+		}
+		lines.set(0);
+		textChars.set(0);
+		commentChars.set(0);
+		preformatChars.set(0);
+		lineLatency.reset();
+	}
+
+	@Override
+	public String toString() {
+		return snapshot().toString();
+	}
+
+	/**
+	 * The counts of a TokenizerMetrics at one moment. It does not change
+	 * as more lines are tokenized.
+	 */
+	public static final class Snapshot {
+
+		private final long lines;
+		private final long[] tokenCounts;
+		private final long textChars;
+		private final long commentChars;
+		private final long preformatChars;
+		private final LatencyHistogram lineLatency;
+
+		private Snapshot(long lines, long[] tokenCounts, long textChars, long commentChars,
+				long preformatChars, LatencyHistogram lineLatency) {
+			this.lines = lines;
+			this.tokenCounts = tokenCounts;
+			this.textChars = textChars;
+			this.commentChars = commentChars;
+			this.preformatChars = preformatChars;
+			this.lineLatency = lineLatency;
+		}
+
+		/** @return the number of lines tokenized */
+		public long getLines() {
+			return lines;
+		}
+
+		/**
+		 * @param type a kind of token
+		 * @return the number of tokens of that kind
+		 */
+		public long getTokenCount(TokenType type) {
+			return tokenCounts[type.ordinal()];
+		}
+
+		/** @return the number of tokens of every kind */
+		public long getTotalTokens() {
+			long total = 0;
+			for (long count : tokenCounts) {
+				total += count;
+			}
+			return total;
+		}
+
+		/** @return the number of chars outside comments and pre blocks */
+		public long getTextChars() {
+			return textChars;
+		}
+
+		/** @return the number of chars inside comments */
+		public long getCommentChars() {
+			return commentChars;
+		}
+
+		/** @return the number of chars inside pre blocks */
+		public long getPreformatChars() {
+			return preformatChars;
+		}
+
+		/**
+		 * @param percentile from 0 to 100
+		 * @return the time that the given percentage of lines took at most,
+		 *         in nanoseconds, to within about 3%
+		 */
+		public long getLineLatency(double percentile) {
+			return lineLatency.getValueAtPercentile(percentile);
+		}
+
+		/** @return the longest any line took, in nanoseconds */
+		public long getMaxLineLatency() {
+			return lineLatency.getMax();
+		}
+
+		/** @return the mean time a line took, in nanoseconds */
+		public double getMeanLineLatency() {
+			return lineLatency.getMean();
+		}
+
+		/** @return the count of each kind of token, by name */
+		public Map<String, Long> getTokenCounts() {
+			Map<String, Long> counts = new LinkedHashMap<>();
+			for (TokenType type : TOKEN_TYPES) {
+				counts.put(type.name(), tokenCounts[type.ordinal()]);
+			}
+			return counts;
+		}
+
+		/** @return the chars scanned in each tokenizer state, by name */
+		public Map<String, Long> getCharsByState() {
+			Map<String, Long> chars = new LinkedHashMap<>();
+			chars.put("NONE", textChars);
+			chars.put("COMMENT", commentChars);
+			chars.put("PREFORMAT", preformatChars);
+			return chars;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("lines=%d tokens=%s chars=%s lineLatency(ns): p50=%d p90=%d p99=%d max=%d mean=%.0f",
+					lines, getTokenCounts(), getCharsByState(), getLineLatency(50), getLineLatency(90),
+					getLineLatency(99), getMaxLineLatency(), getMeanLineLatency());
+		}
+	}
+}
@@ -0,0 +1,27 @@
+import java.util.Map;
+
+/**
+ * The JMX view of a TokenizerMetrics, as attributes that JConsole and
+ * other JMX clients can read. Latencies are per line, in nanoseconds.
+ *
+ * @author Aditya Dendukuri
+ * @since January 17 2025
+ */
+public interface TokenizerMetricsMXBean {
+
+	long getLines();
+
+	Map<String, Long> getTokenCounts();
+
+	Map<String, Long> getCharsByState();
+
+	long getLineLatencyMedianNanos();
+
+	long getLineLatency99thPercentileNanos();
+
+	long getLineLatencyMaxNanos();
+
+	double getLineLatencyMeanNanos();
+
+	void reset();
+}
@@ -0,0 +1,147 @@
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A view of UTF-8 bytes that the tokenizer can scan without decoding
+ * them first. Each byte is one "char" of the sequence, so every ASCII
+ * character (including all the HTML markup) reads as itself and the bytes
+ * of a non-ASCII character read as values from 0x80 to 0xFF. Where the
+ * tokenizer needs to know what kind of character starts at a byte, it
+ * decodes just that one character with charAtByte. The bytes of a token
+ * are only decoded when it is turned into a String, so markup, numbers
+ * and punctuation are never decoded at all.
+ *
+ * @author Aditya Dendukuri
+ * @since January 3 2025
+ */
+public class Utf8Text implements CharSequence {
+
+	private final byte[] bytes;
+	private final int offset;
+	private final int length;
+
+	/**
+	 * @param bytes UTF-8 encoded text
+	 */
+	public Utf8Text(byte[] bytes) {
+		this(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * @param bytes  UTF-8 encoded text
+	 * @param offset the index of the first byte of the view
+	 * @param length the number of bytes in the view
+	 */
+	public Utf8Text(byte[] bytes, int offset, int length) {
+		if (offset < 0 || length < 0 || offset + length > bytes.length) {
+			throw new IndexOutOfBoundsException("offset " + offset + ", length " + length
+					+ " in " + bytes.length + " bytes");
+		}
+		this.bytes = bytes;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/** @return the number of bytes in the view */
+	@Override
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * @param index the byte number within the view
+	 * @return the byte as a value from 0 to 255
+	 */
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException("index " + index + " of " + length);
+		}
+		return (char) (bytes[offset + index] & 0xff);
+	}
+
+	/**
+	 * @param start the first byte of the new view
+	 * @param end   one past the last byte of the new view
+	 * @return a view of those bytes, sharing this view's array
+	 */
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if (start < 0 || end > length || start > end) {
+			throw new IndexOutOfBoundsException("range " + start + " to " + end + " of " + length);
+		}
+		return new Utf8Text(bytes, offset + start, end - start);
+	}
+
+	/**
+	 * Decodes the one character whose UTF-8 sequence starts at a byte.
+	 * A character outside the Basic Multilingual Plane, which a String
+	 * holds as two surrogates, and bytes that are not well-formed UTF-8,
+	 * which decode to the replacement character, both come back as
+	 * U+FFFD, since none of them is a letter, digit or space.
+	 *
+	 * @param index the byte number within the view
+	 * @param end   one past the last byte that may be used
+	 * @return the character, or U+FFFD
+	 */
+	public char charAtByte(int index, int end) {
+		int first = bytes[offset + index] & 0xff;
+		if (first < 0x80) {
+			return (char) first;
+		}
+		int length = sequenceLength(first);
+		if (length == 0 || length == 4 || index + length > end) {
+			return '\uFFFD';
+		}
+		int second = bytes[offset + index + 1] & 0xff;
+		if ((second & 0xc0) != 0x80) {
+			return '\uFFFD';
+		}
+		if (length == 2) {
+			return (char) (((first & 0x1f) << 6) | (second & 0x3f));
+		}
+		int third = bytes[offset + index + 2] & 0xff;
+		if ((third & 0xc0) != 0x80 || (first == 0xe0 && second < 0xa0) || (first == 0xed && second >= 0xa0)) {
+			// overlong, or a surrogate, which UTF-8 may not hold
+			return '\uFFFD';
+		}
+		return (char) (((first & 0x0f) << 12) | ((second & 0x3f) << 6) | (third & 0x3f));
+	}
+
+	/**
+	 * @param index the byte number within the view
+	 * @param end   one past the last byte that may be used
+	 * @return the number of bytes of the character charAtByte decodes at
+	 *         index, or 1 if it returns U+FFFD
+	 */
+	public int byteCount(int index, int end) {
+		int first = bytes[offset + index] & 0xff;
+		if (first < 0x80 || charAtByte(index, end) == '\uFFFD') {
+			return 1;
+		}
+		return sequenceLength(first);
+	}
+
+	/**
+	 * @param first the first byte of a UTF-8 sequence, from 0x80 to 0xFF
+	 * @return the number of bytes in the sequence, or 0 if it can not
+	 *         start one; C0 and C1 would only start overlong sequences
+	 */
+	private static int sequenceLength(int first) {
+		if (first >= 0xc2 && first <= 0xdf) {
+			return 2;
+		}
+		if (first >= 0xe0 && first <= 0xef) {
+			return 3;
+		}
+		if (first >= 0xf0 && first <= 0xf4) {
+			return 4;
+		}
+		return 0;
+	}
+
+	/** @return the bytes decoded from UTF-8 */
+	@Override
+	public String toString() {
+		return new String(bytes, offset, length, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,135 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A growable array of bytes that numbers are written into as varints:
+ * seven bits per byte, low bits first, with the high bit set on every
+ * byte but the last. Numbers below 128 take one byte, below 16384 two.
+ * Used for the postings of HTMLIndex and for TokenFile.
+ *
+ * @author Aditya Dendukuri
+ * @since January 20 2025
+ */
+public class VarIntBuffer {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private byte[] bytes;
+	private int size;
+
+	/**
+	 * Creates an empty buffer.
+	 */
+	public VarIntBuffer() {
+		bytes = new byte[DEFAULT_CAPACITY];
+		size = 0;
+	}
+
+	/**
+	 * Appends a number as a varint.
+	 *
+	 * @param value the number, at least 0
+	 */
+	public void writeVarInt(int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("varints can not be negative: " + value);
+		}
+		ensureCapacity(5);
+		while (value >= 0x80) {
+			bytes[size++] = (byte) (value | 0x80);
+			value >>>= 7;
+		}
+		bytes[size++] = (byte) value;
+	}
+
+	/**
+	 * Appends one byte as it is.
+	 *
+	 * @param value the byte
+	 */
+	public void writeByte(int value) {
+		ensureCapacity(1);
+		bytes[size++] = (byte) value;
+	}
+
+	/**
+	 * Appends bytes as they are.
+	 *
+	 * @param source the bytes
+	 * @param offset the index of the first byte to append
+	 * @param length the number of bytes to append
+	 */
+	public void writeBytes(byte[] source, int offset, int length) {
+		ensureCapacity(length);
+		System.arraycopy(source, offset, bytes, size, length);
+		size += length;
+	}
+
+	/**
+	 * Appends everything written to another buffer.
+	 *
+	 * @param other the buffer to copy
+	 */
+	public void writeBytes(VarIntBuffer other) {
+		writeBytes(other.bytes, 0, other.size);
+	}
+
+	/** @return the number of bytes written */
+	public int size() {
+		return size;
+	}
+
+	/** @return a copy of the bytes written */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(bytes, size);
+	}
+
+	/**
+	 * Writes the bytes written so far to a stream.
+	 *
+	 * @param out the stream
+	 * @throws IOException if the stream can not be written
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(bytes, 0, size);
+	}
+
+	/**
+	 * Empties the buffer, keeping its capacity.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Reads a varint at the buffer's position and moves past it.
+	 *
+	 * @param in the bytes to read from
+	 * @return the number
+	 * @throws IllegalArgumentException if the bytes are not a valid varint
+	 */
+	public static int readVarInt(ByteBuffer in) {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.get();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("varint longer than 5 bytes at " + (in.position() - 5));
+	}
+
+	/**
+	 * Grows the array so that many more bytes fit.
+	 *
+	 * @param extra the number of bytes about to be written
+	 */
+	private void ensureCapacity(int extra) {
+		if (size + extra > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the character classification the tokenizer does on
+ * every char: HTMLCharClass's lookup table against the Character methods
+ * and punctuation scan it replaced. Each operation classifies every byte
+ * of one example*.html file, or of a synthetic document as in
+ * RenderJmhBenchmark, and the bytes counter reports bytes classified per
+ * second. Run from the HTMLRender folder with:
+ *
+ *		gradle jmh -Pjmh="CharClassJmhBenchmark"
+ *
+ * @author Aditya Dendukuri
+ * @since December 9 2024
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CharClassJmhBenchmark {
+
+	// the punctuation the tokenizer used to scan for, char by char
+	private static final char[] PUNCTUATION = { '.', ',', ';', ':', '(', ')', '?', '!', '=', '&', '~', '+', '-' };
+
+	private static final MethodHandle IS_LETTER;		// HTMLCharClass.isLetter(char)
+	private static final MethodHandle IS_DIGIT;			// HTMLCharClass.isDigit(char)
+	private static final MethodHandle IS_PUNCTUATION;	// HTMLCharClass.isPunctuation(char)
+
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			Class<?> charClass = Class.forName("HTMLCharClass");
+			MethodType test = MethodType.methodType(boolean.class, char.class);
+			IS_LETTER = lookup.findStatic(charClass, "isLetter", test);
+			IS_DIGIT = lookup.findStatic(charClass, "isDigit", test);
+			IS_PUNCTUATION = lookup.findStatic(charClass, "isPunctuation", test);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * Counts the bytes classified, which JMH reports as a rate next to the
+	 * rate of operations.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Bytes {
+		public long bytes;
+
+		@Setup(Level.Iteration)
+		public void clear() {
+			bytes = 0;
+		}
+	}
+
+	/** One example file, or "synthetic-N" for N copies of all seven. */
+	@Param({ "example1.html", "example2.html", "example3.html", "example4.html", "example5.html",
+			"example6.html", "example7.html", "synthetic-10" })
+	public String document;
+
+	private char[] chars;		// the document, one char per UTF-8 byte as the tokenizer scans it
+	private int byteCount;
+
+	@Setup
+	public void setUp() throws Exception {
+		byte[] utf8 = RenderJmhBenchmark.readDocument(document).getBytes(StandardCharsets.UTF_8);
+		chars = new char[utf8.length];
+		for (int j = 0; j < utf8.length; j++) {
+			chars[j] = (char) (utf8[j] & 0xff);
+		}
+		byteCount = utf8.length;
+	}
+
+	/**
+	 * Classifies every byte with HTMLCharClass's table.
+	 *
+	 * @return how many bytes were letters, digits or punctuation
+	 */
+	@Benchmark
+	public int table(Bytes counter) throws Throwable {
+		int classified = 0;
+		for (char c : chars) {
+			if ((boolean) IS_LETTER.invokeExact(c) || (boolean) IS_DIGIT.invokeExact(c)
+					|| (boolean) IS_PUNCTUATION.invokeExact(c)) {
+				classified++;
+			}
+		}
+		counter.bytes += byteCount;
+		return classified;
+	}
+
+	/**
+	 * Classifies every byte the way the tokenizer did before the table:
+	 * Character.isLetter and isDigit, then a scan of a new punctuation array.
+	 *
+	 * @return how many bytes were letters, digits or punctuation
+	 */
+	@Benchmark
+	public int scan(Bytes counter) {
+		int classified = 0;
+		for (char c : chars) {
+			if (Character.isLetter(c) || Character.isDigit(c) || isPunctuation(c)) {
+				classified++;
+			}
+		}
+		counter.bytes += byteCount;
+		return classified;
+	}
+
+	/**
+	 * @param c the character to check
+	 * @return true if c is in a fresh copy of the punctuation array
+	 */
+	private static boolean isPunctuation(char c) {
+		char[] punctuation = PUNCTUATION.clone();
+		for (char p : punctuation) {
+			if (c == p) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
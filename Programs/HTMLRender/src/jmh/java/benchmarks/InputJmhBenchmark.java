@@ -0,0 +1,189 @@
+package benchmarks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for reading and tokenizing a large HTML file through a
+ * Scanner (FileUtils.openToRead) against a memory-mapped MappedLineReader,
+ * both decoding each line and tokenizing its undecoded UTF-8 bytes. A
+ * synthetic file is built from the example*.html files, repeated until it
+ * reaches the size given in megabytes, and deleted afterwards. Each
+ * operation reads the whole file once. Run from the HTMLRender folder with:
+ *
+ *		gradle jmh -Pjmh="InputJmhBenchmark"
+ *		gradle jmh -Pjmh="InputJmhBenchmark -p megabytes=10"
+ *
+ * @author Aditya Dendukuri
+ * @since December 30 2024
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InputJmhBenchmark {
+
+	private static final String SYNTHETIC_FILE = "inputBenchmark.tmp.html";
+
+	private static final MethodHandle OPEN_TO_READ;		// FileUtils.openToRead(String)
+	private static final MethodHandle NEW_READER;		// (String) -> MappedLineReader
+	private static final MethodHandle NEXT_LINE;		// MappedLineReader.nextLine()
+	private static final MethodHandle GET_LINE;			// MappedLineReader.getLine()
+	private static final MethodHandle GET_LINE_BYTES;	// MappedLineReader.getLineBytes()
+	private static final MethodHandle NEW_TOKENIZER;	// () -> HTMLUtilities
+	private static final MethodHandle NEW_TOKENS;		// () -> TokenBuffer
+	private static final MethodHandle TOKENIZE;			// HTMLUtilities.tokenize(CharSequence, int, int, TokenSink)
+	private static final MethodHandle CLEAR;			// TokenBuffer.clear()
+	private static final MethodHandle SIZE;				// TokenBuffer.size()
+
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			Class<?> fileUtils = Class.forName("FileUtils");
+			Class<?> reader = Class.forName("MappedLineReader");
+			Class<?> utf8Text = Class.forName("Utf8Text");
+			Class<?> utilities = Class.forName("HTMLUtilities");
+			Class<?> sink = Class.forName("TokenSink");
+			Class<?> buffer = Class.forName("TokenBuffer");
+
+			OPEN_TO_READ = lookup.findStatic(fileUtils, "openToRead",
+					MethodType.methodType(Scanner.class, String.class));
+			NEW_READER = lookup.findConstructor(reader, MethodType.methodType(void.class, String.class))
+					.asType(MethodType.methodType(Closeable.class, String.class));
+			NEXT_LINE = lookup.findVirtual(reader, "nextLine", MethodType.methodType(boolean.class))
+					.asType(MethodType.methodType(boolean.class, Closeable.class));
+			GET_LINE = lookup.findVirtual(reader, "getLine", MethodType.methodType(CharSequence.class))
+					.asType(MethodType.methodType(CharSequence.class, Closeable.class));
+			GET_LINE_BYTES = lookup.findVirtual(reader, "getLineBytes", MethodType.methodType(utf8Text))
+					.asType(MethodType.methodType(CharSequence.class, Closeable.class));
+			NEW_TOKENIZER = lookup.findConstructor(utilities, MethodType.methodType(void.class))
+					.asType(MethodType.methodType(Object.class));
+			NEW_TOKENS = lookup.findConstructor(buffer, MethodType.methodType(void.class))
+					.asType(MethodType.methodType(Object.class));
+			TOKENIZE = lookup.findVirtual(utilities, "tokenize",
+					MethodType.methodType(void.class, CharSequence.class, int.class, int.class, sink))
+					.asType(MethodType.methodType(void.class, Object.class, CharSequence.class, int.class,
+							int.class, Object.class));
+			CLEAR = lookup.findVirtual(buffer, "clear", MethodType.methodType(void.class))
+					.asType(MethodType.methodType(void.class, Object.class));
+			SIZE = lookup.findVirtual(buffer, "size", MethodType.methodType(int.class))
+					.asType(MethodType.methodType(int.class, Object.class));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/** The size of the synthetic file. */
+	@Param({ "100" })
+	public int megabytes;
+
+	private Object tokens;
+
+	/**
+	 * Writes the example files over and over until the file is big enough.
+	 */
+	@Setup
+	public void setUp() throws Throwable {
+		byte[] corpus = RenderJmhBenchmark.readDocument(RenderJmhBenchmark.SYNTHETIC + 1)
+				.getBytes(StandardCharsets.UTF_8);
+		long target = megabytes * 1_000_000L;
+		try (OutputStream output = Files.newOutputStream(Paths.get(SYNTHETIC_FILE))) {
+			for (long written = 0; written < target; written += corpus.length) {
+				output.write(corpus);
+			}
+		}
+		tokens = NEW_TOKENS.invokeExact();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(Paths.get(SYNTHETIC_FILE));
+	}
+
+	/**
+	 * Reads the file through a Scanner and tokenizes each line.
+	 *
+	 * @return the number of tokens
+	 */
+	@Benchmark
+	public long scanner() throws Throwable {
+		Object tokenizer = NEW_TOKENIZER.invokeExact();
+		long count = 0;
+		try (Scanner input = (Scanner) OPEN_TO_READ.invokeExact(SYNTHETIC_FILE)) {
+			while (input.hasNextLine()) {
+				count += tokenize(tokenizer, input.nextLine());
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Reads the file through a MappedLineReader and tokenizes each decoded line.
+	 *
+	 * @return the number of tokens
+	 */
+	@Benchmark
+	public long mapped() throws Throwable {
+		Object tokenizer = NEW_TOKENIZER.invokeExact();
+		long count = 0;
+		try (Closeable input = (Closeable) NEW_READER.invokeExact(SYNTHETIC_FILE)) {
+			while ((boolean) NEXT_LINE.invokeExact(input)) {
+				count += tokenize(tokenizer, (CharSequence) GET_LINE.invokeExact(input));
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Reads the file through a MappedLineReader and tokenizes each line's
+	 * UTF-8 bytes without decoding them.
+	 *
+	 * @return the number of tokens
+	 */
+	@Benchmark
+	public long mappedBytes() throws Throwable {
+		Object tokenizer = NEW_TOKENIZER.invokeExact();
+		long count = 0;
+		try (Closeable input = (Closeable) NEW_READER.invokeExact(SYNTHETIC_FILE)) {
+			while ((boolean) NEXT_LINE.invokeExact(input)) {
+				count += tokenize(tokenizer, (CharSequence) GET_LINE_BYTES.invokeExact(input));
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @param tokenizer the HTMLUtilities reading the file
+	 * @param line      one line of the file
+	 * @return the number of tokens in it
+	 */
+	private int tokenize(Object tokenizer, CharSequence line) throws Throwable {
+		CLEAR.invokeExact(tokens);
+		TOKENIZE.invokeExact(tokenizer, line, 0, line.length(), tokens);
+		return (int) SIZE.invokeExact(tokens);
+	}
+}
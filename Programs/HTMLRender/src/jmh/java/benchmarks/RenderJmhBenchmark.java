@@ -0,0 +1,156 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks for tokenizing with HTMLUtilities.tokenizeHTMLString and
+ * rendering with HTMLRender, on each of the seven example*.html files and
+ * on synthetic documents made by repeating all seven 10, 100 and 1000
+ * times. The renderer prints to a NullPrinter, so only the tokenizer and
+ * the render state machine are timed. Run from the HTMLRender folder with:
+ *
+ *		gradle jmh
+ *		gradle jmh -Pjmh="-prof gc"		to see bytes allocated per operation
+ *		gradle jmhCheck					to check the synthetic documents against
+ *										the thresholds in build.gradle
+ *
+ * JMH needs benchmarks to be in a package, and a class in a package can
+ * not name the classes of HTMLRender, which are in the default package.
+ * So they are reached through method handles looked up once; a call
+ * through a static final handle is compiled to a direct call.
+ *
+ * @author Aditya Dendukuri
+ * @since January 10 2025
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderJmhBenchmark {
+
+	static final String SYNTHETIC = "synthetic-";		// followed by the number of copies
+
+	private static final MethodHandle NEW_RENDERER;		// () -> HTMLRender printing to a NullPrinter
+	private static final MethodHandle RENDER;			// HTMLRender.render(Reader)
+	private static final MethodHandle NEW_TOKENIZER;	// () -> HTMLUtilities
+	private static final MethodHandle TOKENIZE;			// HTMLUtilities.tokenizeHTMLString(String)
+
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			Class<?> render = Class.forName("HTMLRender");
+			Class<?> printer = Class.forName("RenderPrinter");
+			Class<?> nullPrinter = Class.forName("NullPrinter");
+			Class<?> utilities = Class.forName("HTMLUtilities");
+
+			MethodHandle newPrinter = lookup.findConstructor(nullPrinter, MethodType.methodType(void.class))
+					.asType(MethodType.methodType(printer));
+			MethodHandle newRenderer = lookup.findConstructor(render, MethodType.methodType(void.class, printer));
+			NEW_RENDERER = MethodHandles.filterReturnValue(newPrinter, newRenderer)
+					.asType(MethodType.methodType(Object.class));
+			RENDER = lookup.findVirtual(render, "render", MethodType.methodType(void.class, Reader.class))
+					.asType(MethodType.methodType(void.class, Object.class, Reader.class));
+			NEW_TOKENIZER = lookup.findConstructor(utilities, MethodType.methodType(void.class))
+					.asType(MethodType.methodType(Object.class));
+			TOKENIZE = lookup.findVirtual(utilities, "tokenizeHTMLString",
+					MethodType.methodType(String[].class, String.class))
+					.asType(MethodType.methodType(String[].class, Object.class, String.class));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/** One example file, or "synthetic-N" for N copies of all seven. */
+	@Param({ "example1.html", "example2.html", "example3.html", "example4.html", "example5.html",
+			"example6.html", "example7.html", "synthetic-10", "synthetic-100", "synthetic-1000" })
+	public String document;
+
+	private String text;
+	private String[] lines;
+	private Object renderer;
+
+	@Setup
+	public void setUp() throws Throwable {
+		text = readDocument(document);
+		lines = text.split("\n", -1);
+		renderer = NEW_RENDERER.invokeExact();
+	}
+
+	/**
+	 * Tokenizes the document line by line with a fresh tokenizer.
+	 */
+	@Benchmark
+	public void tokenize(Blackhole blackhole) throws Throwable {
+		Object tokenizer = NEW_TOKENIZER.invokeExact();
+		for (String line : lines) {
+			blackhole.consume((String[]) TOKENIZE.invokeExact(tokenizer, line));
+		}
+	}
+
+	/**
+	 * Tokenizes and renders the whole document.
+	 */
+	@Benchmark
+	public void render(Blackhole blackhole) throws Throwable {
+		RENDER.invokeExact(renderer, (Reader) new StringReader(text));
+		blackhole.consume(renderer);
+	}
+
+	/**
+	 * @param document an example file name, or "synthetic-N"
+	 * @return the document's HTML, with every line ending in a newline
+	 * @throws IOException if an example file can not be read
+	 */
+	static String readDocument(String document) throws IOException {
+		if (!document.startsWith(SYNTHETIC)) {
+			return readFile(document);
+		}
+		StringBuilder all = new StringBuilder();
+		for (int f = 1; f <= 7; f++) {
+			all.append(readFile("example" + f + ".html"));
+		}
+		int copies = Integer.parseInt(document.substring(SYNTHETIC.length()));
+		StringBuilder repeated = new StringBuilder(all.length() * copies);
+		for (int copy = 0; copy < copies; copy++) {
+			repeated.append(all);
+		}
+		return repeated.toString();
+	}
+
+	/**
+	 * @param fileName the file to read
+	 * @return the whole file read as UTF-8, with every line ending in a newline
+	 * @throws IOException if the file can not be read
+	 */
+	private static String readFile(String fileName) throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (String line : Files.readAllLines(Paths.get(fileName), StandardCharsets.UTF_8)) {
+			text.append(line).append('\n');
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,97 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that a cached render depends only on the document and the
+ * line-breaking settings, not on what the renderer rendered before.
+ *
+ * @author Aditya Dendukuri
+ * @since January 13 2025
+ */
+class RenderCacheTest {
+
+	private static final String OPEN_COMMENT = "<p>first</p>\n<!-- never closed\n";
+	private static final String OPEN_PRE = "<p>first</p>\n<pre>never closed\n";
+	private static final String DOCUMENT = "<p>Hello <b>bold</b> world</p>\n";
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void documentAfterOpenCommentIsCachedInFull() throws IOException {
+		checkCachedAfter(OPEN_COMMENT);
+	}
+
+	@Test
+	void documentAfterOpenPreIsCachedInFull() throws IOException {
+		checkCachedAfter(OPEN_PRE);
+	}
+
+	@Test
+	void renderAfterOpenBlockStartsFresh() throws IOException {
+		String expected = render(DOCUMENT);
+		StringWriter output = new StringWriter();
+		HTMLRender renderer = new HTMLRender(new TextPrinter(output, false));
+		renderer.render(new StringReader(OPEN_COMMENT));
+		int start = output.toString().length();
+		renderer.render(new StringReader(DOCUMENT));
+		assertEquals(expected, output.toString().substring(start));
+	}
+
+	/**
+	 * Renders a document that leaves the tokenizer inside a block, then
+	 * DOCUMENT, through one cache, and checks that a fresh renderer
+	 * sharing the cache replays DOCUMENT the same as rendering it anew.
+	 *
+	 * @param first the document rendered before DOCUMENT
+	 */
+	private void checkCachedAfter(String first) throws IOException {
+		String expected = render(DOCUMENT);
+		assertFalse(expected.trim().isEmpty());
+
+		RenderCache cache = new RenderCache();
+		HTMLRender renderer = new HTMLRender(new TextPrinter(new StringWriter(), false));
+		renderer.setRenderCache(cache);
+		renderer.runCached(write("first.html", first));
+		renderer.runCached(write("document.html", DOCUMENT));
+		assertEquals(2, cache.getMisses());
+
+		StringWriter output = new StringWriter();
+		HTMLRender fresh = new HTMLRender(new TextPrinter(output, false));
+		fresh.setRenderCache(cache);
+		fresh.runCached(folder.resolve("document.html").toString());
+		assertEquals(1, cache.getHits());
+		assertEquals(expected, output.toString());
+	}
+
+	/**
+	 * @param document HTML
+	 * @return the document rendered as plain text by a new renderer
+	 */
+	private String render(String document) throws IOException {
+		StringWriter output = new StringWriter();
+		new HTMLRender(new TextPrinter(output, false)).render(new StringReader(document));
+		return output.toString();
+	}
+
+	/**
+	 * @param name the file name
+	 * @param text what to put in the file
+	 * @return the path of the file, in the test's temporary folder
+	 */
+	private String write(String name, String text) throws IOException {
+		Path file = folder.resolve(name);
+		Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+		return file.toString();
+	}
+}
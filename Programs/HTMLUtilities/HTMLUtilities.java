@@ -1,3 +1,6 @@
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Utilities for handling HTML, tokenizes tags, words, numbers, and punctuation,
  * and handles comments and preformatted text.
@@ -17,7 +20,8 @@ public class HTMLUtilities {
 
 	/**
 	 * Break the HTML string into tokens. The array returned is
-	 * exactly the size of the number of tokens in the HTML string.
+	 * exactly the size of the number of tokens in the HTML string,
+	 * however many there are.
 	 * Example: HTML string = "Goodnight moon goodnight stars"
 	 * returns { "Goodnight", "moon", "goodnight", "stars" }
 	 * 
@@ -25,8 +29,7 @@ public class HTMLUtilities {
 	 * @return the String array of tokens
 	 */
 	public String[] tokenizeHTMLString(String str) {
-		String[] result = new String[10000];
-		int tokenIndex = 0;
+		List<String> result = new ArrayList<>();
 		String currentToken = "";
 		boolean insideTag = false;
 		boolean hyphenUsed = false;
@@ -47,22 +50,18 @@ public class HTMLUtilities {
 	
 		if (state == TokenState.PREFORMAT) {
 			if (equalsAtPosition(str.trim(), 0, "</pre>")) {
-				result[tokenIndex++] = "</pre>";
+				result.add("</pre>");
 				state = TokenState.NONE;
 			} else {
-				result[tokenIndex++] = str;
-			}
-			String[] finalTokens = new String[tokenIndex];
-			for (int j = 0; j < tokenIndex; j++) {
-				finalTokens[j] = result[j];
+				result.add(str);
 			}
-			return finalTokens;
+			return result.toArray(new String[result.size()]);
 		}
 	
 		while (i < str.length()) {
 			if (matchesAtPosition(str, i, "<!--")) {
 				if (currentToken.length() > 0) {
-					result[tokenIndex++] = currentToken;
+					result.add(currentToken);
 					currentToken = "";
 				}
 				int endCommentIndex = str.indexOf("-->", i + 4);
@@ -74,19 +73,19 @@ public class HTMLUtilities {
 				}
 			} else if (matchesAtPosition(str, i, "<pre>")) {
 				if (currentToken.length() > 0) {
-					result[tokenIndex++] = currentToken;
+					result.add(currentToken);
 					currentToken = "";
 				}
-				result[tokenIndex++] = "<pre>";
+				result.add("<pre>");
 				state = TokenState.PREFORMAT;
 				i += 5;
 				i = str.length(); // Exit loop, rest of line is preformatted
 			} else if (matchesAtPosition(str, i, "</pre>")) {
 				if (currentToken.length() > 0) {
-					result[tokenIndex++] = currentToken;
+					result.add(currentToken);
 					currentToken = "";
 				}
-				result[tokenIndex++] = "</pre>";
+				result.add("</pre>");
 				state = TokenState.NONE;
 				i += 6;
 			} else {
@@ -95,7 +94,7 @@ public class HTMLUtilities {
 				if (insideTag) {
 					currentToken += currentChar;
 					if (currentChar == '>') {
-						result[tokenIndex++] = currentToken;
+						result.add(currentToken);
 						currentToken = "";
 						insideTag = false;
 					}
@@ -111,7 +110,7 @@ public class HTMLUtilities {
 						currentToken += currentChar;
 						i++;
 					} else {
-						result[tokenIndex++] = currentToken;
+						result.add(currentToken);
 						currentToken = "";
 						insideNumber = false;
 						// Do not increment i to reprocess the current character
@@ -119,7 +118,7 @@ public class HTMLUtilities {
 				} else {
 					if (currentChar == '<') {
 						if (currentToken.length() > 0) {
-							result[tokenIndex++] = currentToken;
+							result.add(currentToken);
 							currentToken = "";
 							hyphenUsed = false;
 						}
@@ -138,7 +137,7 @@ public class HTMLUtilities {
 					} else if (Character.isDigit(currentChar) ||
 							(currentChar == '-' && i + 1 < str.length() && Character.isDigit(str.charAt(i + 1)))) {
 						if (currentToken.length() > 0) {
-							result[tokenIndex++] = currentToken;
+							result.add(currentToken);
 							currentToken = "";
 							hyphenUsed = false;
 						}
@@ -148,15 +147,15 @@ public class HTMLUtilities {
 						i++;
 					} else if (isPunctuation(currentChar)) {
 						if (currentToken.length() > 0) {
-							result[tokenIndex++] = currentToken;
+							result.add(currentToken);
 							currentToken = "";
 							hyphenUsed = false;
 						}
-						result[tokenIndex++] = String.valueOf(currentChar);
+						result.add(String.valueOf(currentChar));
 						i++;
 					} else {
 						if (currentToken.length() > 0) {
-							result[tokenIndex++] = currentToken;
+							result.add(currentToken);
 							currentToken = "";
 							hyphenUsed = false;
 						}
@@ -167,15 +166,10 @@ public class HTMLUtilities {
 		}
 	
 		if (currentToken.length() > 0) {
-			result[tokenIndex++] = currentToken;
-		}
-	
-		String[] finalTokens = new String[tokenIndex];
-		for (int j = 0; j < tokenIndex; j++) {
-			finalTokens[j] = result[j];
+			result.add(currentToken);
 		}
 	
-		return finalTokens;
+		return result.toArray(new String[result.size()]);
 	}
 	
 	/**
@@ -1,5 +1,5 @@
-import java.io.PrintWriter;
-import java.util.Scanner;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * MVCipher -
@@ -63,20 +63,35 @@ public class MVCipher {
      * 
      * @param inputFileName The name of the file to read.
      * @return The contents of the file as a single string.
+     * @throws IOException if the file can not be read
      */
-    public String readFile(String inputFileName) {
+    public String readFile(String inputFileName) throws IOException {
         StringBuilder total = new StringBuilder();
-        Scanner in = FileUtils.openToRead(inputFileName);
-
-        while (in.hasNextLine()) {
-            String line = in.nextLine();
+        FileUtils.forEachLine(inputFileName, line -> {
             total.append(line);
             total.append("\n");
-        }
-        in.close();
+        });
         return total.toString();
     }
 
+    /**
+     * Writes a string to a file. The file is replaced only once all of it
+     * has been written, so it is never left half-written.
+     * 
+     * @param outputFileName The name of the file to write.
+     * @param content        The text to write.
+     * @return true if the file was written, false if an error was printed.
+     */
+    public boolean writeFile(String outputFileName, String content) {
+        try {
+            FileUtils.writeString(outputFileName, content);
+            return true;
+        } catch (IOException e) {
+            System.out.println("ERROR: Can not open " + outputFileName + " for writing.");
+            return false;
+        }
+    }
+
     /**
      * Processes a string for encryption or decryption using the cipher algorithim.
      * 
@@ -87,7 +102,7 @@ public class MVCipher {
      * @return The processed string.
      */
     public String processString(String text, String key, boolean shouldEncrypt) {
-        String total = "";
+        StringBuilder total = new StringBuilder(text.length());
         int keyIndex = 0;
 
         for (int i = 0; i < text.length(); i++) {
@@ -109,7 +124,7 @@ public class MVCipher {
                 processedChar = currentChar;
             }
 
-            total += processedChar;
+            total.append(processedChar);
 
             // resest the key index when it exceeds the key length
             if (keyIndex >= key.length()) {
@@ -184,14 +199,22 @@ public class MVCipher {
     public void encrypt(String key) {
         System.out.println();
         String inputFileName = Prompt.getString("Name of file to encrypt");
+        // read the input while the output file name is typed in
+        CompletableFuture<String> reading = FileUtils.loadAsync(inputFileName, this::readFile);
         String outputFileName = Prompt.getString("Name of output file");
-        String fileContent = readFile(inputFileName);
+        String fileContent;
+        try {
+            fileContent = FileUtils.await(reading);
+        } catch (IOException e) {
+            System.out.println("ERROR: Can not open " + inputFileName + " for reading.");
+            return;
+        }
         String encryptedContent = processString(fileContent, key, true);
 
-        // Write the encrypted content to the output file using FileUtils.openToWrite
-        PrintWriter out = FileUtils.openToWrite(outputFileName);
-        out.print(encryptedContent);
-        out.close();
+        // Write the encrypted content to the output file in one go
+        if (!writeFile(outputFileName, encryptedContent)) {
+            return;
+        }
 
         System.out.println("The encrypted file " + outputFileName + " has been created using the keyword -> " + key);
     }
@@ -204,14 +227,22 @@ public class MVCipher {
     public void decrypt(String key) {
         System.out.println(); // Empty line for formatting
         String inputFileName = Prompt.getString("Name of file to decrypt");
+        // read the input while the output file name is typed in
+        CompletableFuture<String> reading = FileUtils.loadAsync(inputFileName, this::readFile);
         String outputFileName = Prompt.getString("Name of output file");
-        String fileContent = readFile(inputFileName);
+        String fileContent;
+        try {
+            fileContent = FileUtils.await(reading);
+        } catch (IOException e) {
+            System.out.println("ERROR: Can not open " + inputFileName + " for reading.");
+            return;
+        }
         String decryptedContent = processString(fileContent, key, false);
 
-        // Write the decrypted content to the output file using FileUtils.openToWrite
-        PrintWriter out = FileUtils.openToWrite(outputFileName);
-        out.print(decryptedContent);
-        out.close();
+        // Write the decrypted content to the output file in one go
+        if (!writeFile(outputFileName, decryptedContent)) {
+            return;
+        }
 
         System.out.println("The decrypted file " + outputFileName + " has been created using the keyword -> " + key);
     }
@@ -1,5 +1,7 @@
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 /**
  *	Population - <description goes here>
  *
@@ -24,22 +26,47 @@ public class Population {
 	}
 	public void run()
 	{
+		// read the data file while the introduction and menu are printed
+		CompletableFuture<List<City>> loading = FileUtils.loadAsync(DATA_FILE, this::readCities);
 		printIntroduction();
 		printMenu();
-		loadData();
+		loadData(loading);
 
 	}
-	public void loadData(){
-		Scanner in = FileUtils.openToRead(DATA_FILE);
-		while(in.hasNextLine())
+	
+	/**	Waits for the data file to be read into cities. Prints an error and
+	 *	exits if it can not be read.
+	 *	@param loading		the read started by run
+	 */
+	public void loadData(CompletableFuture<List<City>> loading)
+	{
+		try
+		{
+			cities = FileUtils.await(loading);
+		}
+		catch (IOException e)
 		{
-			in.useDelimiter("[\t\n]");
-			String state = in.next();
-			String name = in.next();
-			String type = in.next();
-			int population = in.nextInt();
-			cities.add(new City(state, name, type, population));
-		}	
+			System.err.println("Error: Can not open " + DATA_FILE + " for reading.");
+			System.exit(72);
+		}
+	}
+	
+	/**	Reads cities from a data file with one tab separated city per line:
+	 *	state, name, designation and population.
+	 *	@param fileName		name of the data file
+	 *	@return				the cities in the order they are in the file
+	 *	@throws IOException	if the file can not be read
+	 */
+	public List<City> readCities(String fileName) throws IOException
+	{
+		List<City> result = new ArrayList<City>();
+		FileUtils.forEachLine(fileName, line -> {
+			String[] fields = line.split("\t");
+			if (fields.length >= 4)
+				result.add(new City(fields[0], fields[1], fields[2],
+						Integer.parseInt(fields[3].trim())));
+		});
+		return result;
 	}
 	/**	Prints the introduction to Population */
 	public void printIntroduction() {
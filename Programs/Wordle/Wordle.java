@@ -1,8 +1,11 @@
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.awt.Color;
 import java.awt.Font;
-import java.util.Scanner;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.awt.event.KeyEvent;
 import javax.swing.JOptionPane;
@@ -35,6 +38,11 @@ public class Wordle
 	
 	/**	File that contains 5-letter words allowed for user guesses. (bigger file) */
 	private final String WORDS5_ALLOWED = "words5allowed.txt";
+
+	/**	The words in WORDS5 and WORDS5_ALLOWED, read in the background while
+	 *	the canvas is set up. Read once and kept for every game. */
+	private CompletableFuture<List<String>> goalWords;
+	private CompletableFuture<Set<String>> allowedWords;
 	
 	/**	A variety of boolean variables to turn things on and off.  These include:
 	 *	show				-	when true, will print the current word to the terminal
@@ -52,19 +60,19 @@ public class Wordle
 	private int [] keyBoardColors;						
 	
 	/** 
-	 *	Creates a Wordle object.  A constructor.  Initializes all of the variables by 
-	 *	calling the method initAll.
-	 *	@param testWord		if this String is found in words5allowed.txt, it will
-	 *						be used to set word.
-	 *	This method is complete.
+	 *	Creates a Wordle object.  A constructor.  Starts reading the word files
+	 *	in the background; call initAll to choose the word once the canvas is
+	 *	set up.
+	 *	@param showIt		"show" to print the chosen word to the terminal
 	 */
-	public Wordle(String showIt, String testWord)
+	public Wordle(String showIt)
 	{
 		show = false;
 		if (showIt.equalsIgnoreCase("show"))
 			show = true;
 		
-		initAll(testWord);
+		goalWords = FileUtils.readAllLinesAsync(WORDS5);
+		allowedWords = FileUtils.loadAsync(WORDS5_ALLOWED, Wordle::readWordSet);
 	}
 	
 	/** 
@@ -113,8 +121,10 @@ public class Wordle
 			}
 		}
 
-		Wordle run = new Wordle(showIt, testWord);
+		// the word files are read while the canvas is set up
+		Wordle run = new Wordle(showIt);
 		run.setUpCanvas();
+		run.initAll(testWord);
 		run.playGame();
 	}
 	
@@ -170,26 +180,25 @@ public class Wordle
 		if (inAllowedWordFile(testWord.toUpperCase())) {
 			result = testWord.toUpperCase();
 		} else {
-			// Read words from inFileName (WORDS5), and pick one at random
-			Scanner sc = null;
+			// Pick a random word from inFileName (WORDS5), one per line
 			int wordCount = 0;
 			String chosenWord = "";
 			try {
-				sc = FileUtils.openToRead(inFileName);
-				while (sc.hasNext()) {
-					String word = sc.next().toUpperCase();
-					wordCount++;
-					if (Math.random() < 1.0 / wordCount) {
-						chosenWord = word;
+				List<String> lines = inFileName.equals(WORDS5) ? FileUtils.await(goalWords)
+						: FileUtils.readAllLines(inFileName);
+				for (String line : lines) {
+					String word = line.trim().toUpperCase();
+					if (!word.isEmpty()) {
+						wordCount++;
+						if (Math.random() < 1.0 / wordCount) {
+							chosenWord = word;
+						}
 					}
 				}
-			} catch (Exception e) {
+			} catch (IOException e) {
 				System.out.println("Error reading from file " + inFileName);
 				e.printStackTrace();
 			}
-			if (sc != null) {
-				sc.close();
-			}
 			if (wordCount > 0) {
 				result = chosenWord;
 			} else {
@@ -215,25 +224,28 @@ public class Wordle
 	public boolean inAllowedWordFile(String possibleWord)
 	{
 		boolean found = false;
-		Scanner sc = null;
 		try {
-			sc = FileUtils.openToRead(WORDS5_ALLOWED);
-			while (sc.hasNext() && !found) {
-				String word = sc.next().toUpperCase();
-				if (word.equals(possibleWord.toUpperCase())) {
-					found = true;
-				}
-			}
-		} catch (Exception e) {
+			found = FileUtils.await(allowedWords).contains(possibleWord.trim().toUpperCase());
+		} catch (IOException e) {
 			System.out.println("Error reading from file " + WORDS5_ALLOWED);
 			e.printStackTrace();
 		}
-		if (sc != null) {
-			sc.close();
-		}
 		return found;
 	}
 	
+	/**
+	 *	Reads a word file into a set of its words in upper case.
+	 *	@param fileName		the file to read, one word per line
+	 *	@return				the words in the file
+	 *	@throws IOException	if the file can not be read
+	 */
+	private static Set<String> readWordSet(String fileName) throws IOException
+	{
+		Set<String> words = new HashSet<String>();
+		FileUtils.forEachLine(fileName, line -> words.add(line.trim().toUpperCase()));
+		return words;
+	}
+	
 	/** 
 	 *	Processes the guess made by the user.  This method will only be called if
 	 *	the field variable letters has length 5.  The guess in letters will need